@@ -0,0 +1,109 @@
+package weather.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import weather.AdvisoryTable;
+import weather.ForecastAnalytics;
+import weather.ForecastParser;
+import weather.ForecastSeries;
+import weather.GridPoint;
+import weather.Period;
+import weather.StringDictionary;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+    @Param({"1000", "10000"})
+    public int gridPoints;
+
+    private Map<GridPoint, ArrayList<Period>> forecasts;
+    private ForecastAnalytics analytics;
+    private long from;
+    private long to;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] json = Payloads.forecastJson(Payloads.HOURLY).getBytes(StandardCharsets.UTF_8);
+        StringDictionary dictionary = new StringDictionary();
+        forecasts = new LinkedHashMap<>();
+        Map<GridPoint, ForecastSeries> series = new LinkedHashMap<>();
+        for (int g = 0; g < gridPoints; g++) {
+            ArrayList<Period> periods = ForecastParser.parse(new ByteArrayInputStream(json)).properties.periods;
+            for (Period p : periods) {
+                p.probabilityOfPrecipitation.value = (p.probabilityOfPrecipitation.value + g * 7) % 101;
+            }
+            GridPoint gp = new GridPoint("R" + g % 40, g, g);
+            forecasts.put(gp, periods);
+            series.put(gp, ForecastSeries.from(periods, dictionary));
+        }
+        analytics = new ForecastAnalytics(series);
+        from = forecasts.values().iterator().next().get(0).startTime.getTime() / 1000;
+        to = from + 48 * 3600L;
+    }
+
+    // nested loops over the parsed periods, one thread
+    @Benchmark
+    public List<GridPoint> nestedLoops() {
+        List<GridPoint> wet = new ArrayList<>();
+        for (Map.Entry<GridPoint, ArrayList<Period>> e : forecasts.entrySet()) {
+            for (Period p : e.getValue()) {
+                long start = p.startTime.getTime() / 1000;
+                long end = p.endTime.getTime() / 1000;
+                if (start < to && end > from && p.probabilityOfPrecipitation.value >= 70) {
+                    wet.add(e.getKey());
+                    break;
+                }
+            }
+        }
+        return wet;
+    }
+
+    @Benchmark
+    public List<GridPoint> precipitationAtLeast() {
+        return analytics.precipitationAtLeast(70, from, to);
+    }
+
+    @Benchmark
+    public Object regionalExtremes() {
+        return analytics.regionalExtremes(from, to);
+    }
+
+    // every rule for every period one Period at a time, as the UI does for today
+    @Benchmark
+    public void advisoriesPerPeriod(Blackhole bh) {
+        for (ArrayList<Period> periods : forecasts.values()) {
+            for (Period p : periods) {
+                bh.consume(AdvisoryTable.DEFAULT.evaluate(p));
+            }
+        }
+    }
+
+    @Benchmark
+    public AdvisoryTable.Result advisoriesBatch() {
+        return AdvisoryTable.DEFAULT.evaluate(analytics);
+    }
+}
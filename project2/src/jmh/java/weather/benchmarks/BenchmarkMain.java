@@ -0,0 +1,23 @@
+package weather.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Entry point of target/benchmarks.jar. Same arguments as the stock JMH main (a regex to
+ * pick suites, -rf json -rff out.json for CI...), but always runs with the GC profiler so
+ * allocation per operation is reported next to the timings.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        Options cmd = new CommandLineOptions(args);
+        Options opts = new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opts).run();
+    }
+}
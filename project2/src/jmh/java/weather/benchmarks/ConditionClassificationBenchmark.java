@@ -0,0 +1,74 @@
+package weather.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import weather.ConditionClassifier;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConditionClassificationBenchmark {
+    // a typical spread of NWS shortForecast phrases
+    static final String[] PHRASES = {
+            "Sunny", "Mostly Sunny", "Partly Sunny", "Partly Cloudy", "Mostly Cloudy",
+            "Chance Rain Showers", "Rain And Snow Likely", "Slight Chance Snow Showers",
+            "Showers And Thunderstorms Likely", "Mostly Clear", "Clear", "Patchy Fog",
+    };
+
+    // the keyword chain JavaFX runs for every day tile
+    static String legacyGif(String shortForecast) {
+        String forecastLower = shortForecast.toLowerCase();
+        if (forecastLower.contains("storm")) {
+            return "/images/stormy.gif";
+        } else if (forecastLower.contains("partly") && forecastLower.contains("sun")) {
+            return "/images/partlysunny.gif";
+        } else if (forecastLower.contains("sun")) {
+            return "/images/sunny.gif";
+        } else if (forecastLower.contains("cloud")) {
+            return "/images/cloudy.gif";
+        } else if (forecastLower.contains("rain")) {
+            return "/images/rainy.gif";
+        } else if (forecastLower.contains("snow")) {
+            return "/images/snowy.gif";
+        } else if (forecastLower.contains("night") && forecastLower.contains("clear")) {
+            return "/images/night.gif";
+        }
+        return "/images/sunny.gif";
+    }
+
+    @Benchmark
+    public void legacyContainsChain(Blackhole bh) {
+        for (String s : PHRASES) {
+            bh.consume(legacyGif(s));
+        }
+    }
+
+    @Benchmark
+    public void classifier(Blackhole bh) {
+        for (String s : PHRASES) {
+            bh.consume(ConditionClassifier.classify(s));
+        }
+    }
+
+    // first sight of every phrase, without the memo
+    @Benchmark
+    public void automatonScan(Blackhole bh) {
+        for (String s : PHRASES) {
+            bh.consume(ConditionClassifier.classify(ConditionClassifier.scan(s)));
+        }
+    }
+}
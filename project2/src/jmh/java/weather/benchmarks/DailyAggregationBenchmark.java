@@ -0,0 +1,91 @@
+package weather.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import weather.DailySummary;
+import weather.ForecastParser;
+import weather.ForecastSeries;
+import weather.Period;
+import weather.StringDictionary;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DailyAggregationBenchmark {
+    private static final ZoneId ZONE = ZoneId.of("America/Chicago");
+
+    @Param({"14", "156"})
+    public int periods;
+
+    private ArrayList<Period> forecast;
+    private ForecastSeries series;
+    private LocalDate firstDay;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] json = Payloads.forecastJson(periods).getBytes(StandardCharsets.UTF_8);
+        forecast = ForecastParser.parse(new ByteArrayInputStream(json)).properties.periods;
+        series = ForecastSeries.from(forecast, new StringDictionary());
+        firstDay = forecast.get(0).startTime.toInstant().atZone(ZONE).toLocalDate();
+    }
+
+    // the per-day rescans JavaFX did for the 7 day view before DailySummary
+    @Benchmark
+    public void legacyPerDayRescan(Blackhole bh) {
+        for (int i = 0; i < 7; i++) {
+            LocalDate dayDate = firstDay.plusDays(i);
+            ArrayList<Period> dayPeriods = new ArrayList<>();
+            for (Period p : forecast) {
+                LocalDate pDate = p.startTime.toInstant().atZone(ZONE).toLocalDate();
+                if (pDate.equals(dayDate)) {
+                    dayPeriods.add(p);
+                }
+            }
+            if (dayPeriods.isEmpty()) continue;
+            int high = -1000;
+            int low = 1000;
+            int precipitation = 0;
+            for (Period p : dayPeriods) {
+                if (p.temperature > high) high = p.temperature;
+                if (p.temperature < low) low = p.temperature;
+                precipitation = Math.max(precipitation, p.probabilityOfPrecipitation.value);
+            }
+            bh.consume(high);
+            bh.consume(low);
+            bh.consume(precipitation);
+        }
+    }
+
+    @Benchmark
+    public Map<LocalDate, DailySummary> dailySummary() {
+        return DailySummary.summarize(forecast, ZONE);
+    }
+
+    @Benchmark
+    public Map<LocalDate, DailySummary> dailySummaryFromSeries() {
+        return DailySummary.summarize(series, ZONE);
+    }
+}
@@ -0,0 +1,61 @@
+package weather.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import weather.ForecastParser;
+import weather.Root;
+import weather.WeatherAPI;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    // 7 day, hourly, multi-week
+    @Param({"14", "156", "672"})
+    public int periods;
+
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        json = Payloads.forecastJson(periods);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // what getObject used to do: a fresh ObjectMapper per call
+    @Benchmark
+    public Root newMapperPerCall() throws IOException {
+        return new ObjectMapper().readValue(json, Root.class);
+    }
+
+    @Benchmark
+    public Root getObjectString() {
+        return WeatherAPI.getObject(json);
+    }
+
+    @Benchmark
+    public Root streamingParse() throws IOException {
+        return ForecastParser.parse(new ByteArrayInputStream(bytes));
+    }
+}
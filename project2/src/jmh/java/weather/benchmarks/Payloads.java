@@ -0,0 +1,64 @@
+package weather.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.Date;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+
+/*
+ * Benchmark payloads built from the synthetic 7 day forecast in /payloads. It is hand
+ * written in the shape api.weather.gov sends (field order, NWS style names, icons and
+ * detailed text), not a captured response, and is kept apart from the test fixtures.
+ * Larger sizes (hourly, multi-week) repeat its periods with shifted times.
+ */
+final class Payloads {
+    static final int SEVEN_DAY = 14;
+    static final int HOURLY = 156;
+    static final int MULTI_WEEK = 672;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Payloads() {
+    }
+
+    static String forecastJson(int periodCount) throws IOException {
+        JsonNode template;
+        try (InputStream in = Payloads.class.getResourceAsStream("/payloads/synthetic-7day.json")) {
+            template = MAPPER.readTree(in);
+        }
+        ObjectNode root = template.deepCopy();
+        ArrayNode source = (ArrayNode) template.path("properties").path("periods");
+        ArrayNode periods = MAPPER.createArrayNode();
+        long step = hourlyStep(periodCount);
+        long first = parseTime(source.get(0).path("startTime").asText());
+        for (int i = 0; i < periodCount; i++) {
+            ObjectNode p = source.get(i % source.size()).deepCopy();
+            long start = first + i * step;
+            p.put("number", i + 1);
+            p.put("startTime", formatTime(start));
+            p.put("endTime", formatTime(start + step));
+            periods.add(p);
+        }
+        ((ObjectNode) root.path("properties")).set("periods", periods);
+        return MAPPER.writeValueAsString(root);
+    }
+
+    // 12 hour periods for the 7 day shape, hourly for anything bigger
+    private static long hourlyStep(int periodCount) {
+        return (periodCount <= SEVEN_DAY ? 12L : 1L) * 3600_000L;
+    }
+
+    private static long parseTime(String iso) {
+        return OffsetDateTime.parse(iso).toInstant().toEpochMilli();
+    }
+
+    private static String formatTime(long epochMilli) {
+        return new StdDateFormat().format(new Date(epochMilli));
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Parent;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.TilePane;
+
+/*
+ * A tile per saved location. Forecasts load in one batch in the background, then each
+ * gridpoint is kept fresh by ForecastSubscriptions. New tile states are worked out off
+ * the FX thread, dropped when equal to what the tile already shows, and the rest are
+ * handed to the FX thread in one coalesced runLater rather than rebuilding the view.
+ */
+public class Dashboard implements AutoCloseable {
+    private final List<weather.SavedLocation> locations;
+    private final List<LocationTile> tiles = new ArrayList<>();
+    private final ConcurrentHashMap<LocationTile, weather.TileState> submitted = new ConcurrentHashMap<>();
+    private final weather.UpdateCoalescer coalescer = new weather.UpdateCoalescer(Platform::runLater);
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ScrollPane view;
+    private volatile weather.ForecastSubscriptions subscriptions;
+    private volatile boolean closed;
+
+    public Dashboard(List<weather.SavedLocation> locations) {
+        this.locations = locations;
+        TilePane grid = new TilePane(12, 12);
+        grid.setPadding(new Insets(12));
+        grid.setPrefColumns(4);
+        grid.getStyleClass().add("dashboard");
+        for (weather.SavedLocation location : locations) {
+            LocationTile tile = new LocationTile(location.name);
+            tiles.add(tile);
+            grid.getChildren().add(tile);
+        }
+        view = new ScrollPane(grid);
+        view.setFitToWidth(true);
+    }
+
+    public Parent getView() {
+        return view;
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("dashboard-loader").start(this::load);
+    }
+
+    private void load() {
+        // several saved locations may share a gridpoint
+        Map<weather.GridPoint, List<LocationTile>> byGridPoint = new LinkedHashMap<>();
+        for (int i = 0; i < locations.size(); i++) {
+            weather.GridPoint gp = null;
+            try {
+                gp = locations.get(i).gridPoint();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not resolve " + locations.get(i) + ": " + e.getMessage());
+            }
+            if (gp == null) {
+                publish(tiles.get(i), weather.TileState.unavailable(locations.get(i).name));
+            } else {
+                byGridPoint.computeIfAbsent(gp, k -> new ArrayList<>()).add(tiles.get(i));
+            }
+        }
+        Map<weather.GridPoint, weather.ForecastResult> results = weather.WeatherAPI.getForecasts(byGridPoint.keySet());
+        for (Map.Entry<weather.GridPoint, List<LocationTile>> e : byGridPoint.entrySet()) {
+            weather.ForecastResult r = results.get(e.getKey());
+            for (LocationTile tile : e.getValue()) {
+                publish(tile, r != null && r.isSuccess()
+                        ? weather.TileState.of(tile.getLocationName(), r.periods, zone)
+                        : weather.TileState.unavailable(tile.getLocationName()));
+            }
+        }
+        if (closed) {
+            return;
+        }
+        weather.ForecastSubscriptions subs = new weather.ForecastSubscriptions();
+        subscriptions = subs;
+        for (Map.Entry<weather.GridPoint, List<LocationTile>> e : byGridPoint.entrySet()) {
+            List<LocationTile> gridTiles = e.getValue();
+            subs.subscribe(e.getKey(), (gridPoint, root) -> {
+                for (LocationTile tile : gridTiles) {
+                    publish(tile, weather.TileState.of(tile.getLocationName(), root.properties.periods, zone));
+                }
+            });
+        }
+        if (closed) {
+            subs.close();
+        }
+    }
+
+    // any thread
+    private void publish(LocationTile tile, weather.TileState state) {
+        weather.TileState previous = submitted.put(tile, state);
+        if (state.equals(previous)) {
+            return;
+        }
+        coalescer.submit(tile, () -> tile.apply(state));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        weather.ForecastSubscriptions subs = subscriptions;
+        if (subs != null) {
+            subs.close();
+        }
+    }
+}
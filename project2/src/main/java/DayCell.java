@@ -0,0 +1,60 @@
+import javafx.geometry.Pos;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+/*
+ * One day of the 7 day list. The ListView only creates as many cells as fit on screen and
+ * hands them new days as it scrolls, so the nodes are built once here and updateItem just
+ * swaps text and image.
+ */
+public class DayCell extends ListCell<weather.DailySummary> {
+    static final double HEIGHT = 112;
+    private static final double GIF_SIZE = 50;
+
+    private final ImageView gif = new ImageView();
+    private final Label date = label("cell-title");
+    private final Label temperature = label("cell-text");
+    private final Label condition = label("cell-text");
+    private final Label wind = label("cell-text");
+    private final Label precipitation = label("cell-text");
+    private final HBox row;
+
+    public DayCell() {
+        gif.setFitWidth(GIF_SIZE);
+        gif.setFitHeight(GIF_SIZE);
+        gif.setPreserveRatio(true);
+        VBox text = new VBox(3, date, temperature, condition, wind, precipitation);
+        text.setAlignment(Pos.CENTER_LEFT);
+        row = new HBox(11, gif, text);
+        row.setAlignment(Pos.CENTER_LEFT);
+        getStyleClass().add("day-cell");
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+    }
+
+    static Label label(String styleClass) {
+        Label label = new Label();
+        label.getStyleClass().add(styleClass);
+        return label;
+    }
+
+    @Override
+    protected void updateItem(weather.DailySummary day, boolean empty) {
+        super.updateItem(day, empty);
+        if (empty || day == null) {
+            setGraphic(null);
+            return;
+        }
+        date.setText(day.date.getMonth() + " " + day.date.getDayOfMonth() + ", " + day.date.getYear());
+        temperature.setText(String.format("High: %d°F/%d°C   Low: %d°F/%d°C",
+                day.high, day.highCelsius(), day.low, day.lowCelsius()));
+        condition.setText("Condition: " + day.shortForecast);
+        wind.setText(String.format("Wind: %s %s", day.windSpeed, day.windDirection));
+        precipitation.setText(String.format("Precipitation: %d%%", day.maxPrecipitation));
+        gif.setImage(ImageCache.get(JavaFX.gifFor(weather.ConditionClassifier.classify(day.shortForecast)), GIF_SIZE, GIF_SIZE));
+        setGraphic(row);
+    }
+}
@@ -0,0 +1,18 @@
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+// the fonts the views use, created once and shared by every node instead of one per label
+public final class Fonts {
+    public static final Font REGULAR_14 = Font.font("Arial", 14);
+    public static final Font REGULAR_16 = Font.font("Arial", 16);
+    public static final Font REGULAR_18 = Font.font("Arial", 18);
+    public static final Font BOLD_12 = Font.font("Arial", FontWeight.BOLD, 12);
+    public static final Font BOLD_16 = Font.font("Arial", FontWeight.BOLD, 16);
+    public static final Font BOLD_18 = Font.font("Arial", FontWeight.BOLD, 18);
+    public static final Font BOLD_20 = Font.font("Arial", FontWeight.BOLD, 20);
+    public static final Font BOLD_28 = Font.font("Arial", FontWeight.BOLD, 28);
+    public static final Font BOLD_32 = Font.font("Arial", FontWeight.BOLD, 32);
+
+    private Fonts() {
+    }
+}
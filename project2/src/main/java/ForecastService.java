@@ -0,0 +1,37 @@
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+
+import weather.ForecastServer;
+import weather.ForecastSource;
+import weather.Metrics;
+import weather.WeatherAPI;
+
+/*
+ * Headless entry point: serves cached NWS forecasts over HTTP instead of showing the UI.
+ *
+ *   java -cp ... [-Dweather.source=replay:<dir>] ForecastService [port] [snapshot dir]
+ *
+ * weather.source takes anything ForecastSource.parse does: live (the default), a stub url,
+ * replay:<dir> or record:<dir>.
+ */
+public class ForecastService {
+    public static void main(String[] args) throws Exception {
+        // without TCP_NODELAY every keep-alive response waits out a delayed ACK (~40ms). The JDK
+        // reads it once, when the first HttpServer is created, so it has to be set before that.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        String source = System.getProperty("weather.source");
+        if (source != null) {
+            WeatherAPI.setForecastSource(ForecastSource.parse(source, WeatherAPI.getHttpClient()));
+        }
+        if (args.length > 1) {
+            WeatherAPI.useSnapshotStore(Paths.get(args[1]));
+        }
+        Metrics.registerMBean();
+        ForecastServer server = ForecastServer.start(new InetSocketAddress(port));
+        System.out.println("Serving forecasts on http://localhost:" + server.port() + ForecastServer.PREFIX + "{region}/{x},{y}");
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    }
+}
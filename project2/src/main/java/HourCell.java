@@ -0,0 +1,68 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import javafx.geometry.Pos;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+
+/*
+ * One hour of the hourly list. Items are row numbers into an HourlySeries, so the list
+ * never materializes Period objects; cells are recycled like DayCell.
+ */
+public class HourCell extends ListCell<Integer> {
+    static final double HEIGHT = 56;
+    private static final double GIF_SIZE = 32;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("EEE h a", Locale.US);
+
+    private final weather.HourlySeries series;
+    private final ZoneId zone;
+    private final ImageView gif = new ImageView();
+    private final Label time = DayCell.label("cell-title");
+    private final Label temperature = DayCell.label("cell-text");
+    private final Label precipitation = DayCell.label("cell-text");
+    private final Label wind = DayCell.label("cell-text");
+    private final Label condition = DayCell.label("cell-text");
+    private final HBox row;
+
+    public HourCell(weather.HourlySeries series, ZoneId zone) {
+        this.series = series;
+        this.zone = zone;
+        gif.setFitWidth(GIF_SIZE);
+        gif.setFitHeight(GIF_SIZE);
+        gif.setPreserveRatio(true);
+        temperature.setMinWidth(110);
+        precipitation.setMinWidth(140);
+        wind.setMinWidth(120);
+        row = new HBox(16, gif, time, temperature, precipitation, wind, condition);
+        row.setAlignment(Pos.CENTER_LEFT);
+        getStyleClass().add("hour-cell");
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+    }
+
+    @Override
+    protected void updateItem(Integer hour, boolean empty) {
+        super.updateItem(hour, empty);
+        if (empty || hour == null) {
+            setGraphic(null);
+            return;
+        }
+        int i = hour;
+        time.setText(TIME.format(Instant.ofEpochSecond(series.startEpochSecond(i)).atZone(zone)));
+        int t = series.temperature(i);
+        double c = weather.Temperature.celsius(t, series.temperatureUnit(i));
+        temperature.setText(Math.round(weather.Temperature.toFahrenheit(c)) + "°F / " + Math.round(c) + "°C");
+        precipitation.setText("Precipitation: " + series.precipitation(i) + "%");
+        int min = series.windMinMph(i);
+        int max = series.windMaxMph(i);
+        String speed = min < 0 ? "" : min == max ? min + " mph" : min + " to " + max + " mph";
+        wind.setText("Wind: " + speed + " " + series.windDirection(i));
+        condition.setText(series.shortForecast(i));
+        gif.setImage(ImageCache.get(JavaFX.gifFor(weather.ConditionClassifier.classify(series.shortForecast(i))), GIF_SIZE, GIF_SIZE));
+        setGraphic(row);
+    }
+}
@@ -0,0 +1,38 @@
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javafx.scene.image.Image;
+
+/*
+ * Decoded images shared by every view. Each resource is decoded once per requested size,
+ * already scaled down to that size (so animated GIF frames are stored at display size,
+ * not at full resolution), and loaded in the background so building a scene never
+ * blocks on decoding.
+ */
+public class ImageCache {
+    private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<>();
+
+    private ImageCache() {
+    }
+
+    public static Image get(String resourcePath, double width, double height) {
+        String key = resourcePath + "@" + width + "x" + height;
+        return images.computeIfAbsent(key, k -> load(resourcePath, width, height));
+    }
+
+    private static Image load(String resourcePath, double width, double height) {
+        URL url = ImageCache.class.getResource(resourcePath);
+        if (url == null) {
+            throw new IllegalArgumentException("No image resource " + resourcePath);
+        }
+        return new Image(url.toExternalForm(), width, height, true, true, true);
+    }
+
+    public static int size() {
+        return images.size();
+    }
+
+    public static void clear() {
+        images.clear();
+    }
+}
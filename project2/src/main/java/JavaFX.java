@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -5,21 +8,26 @@ import java.time.Month;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
 public class JavaFX extends Application {
@@ -31,14 +39,34 @@ public class JavaFX extends Application {
     private static final String STORMY_GIF = "/images/stormy.gif";
     private static final String NIGHT_GIF = "/images/night.gif";
     private static final String PARTLYSUNNY_GIF = "/images/partlysunny.gif";
+    private static final Path SNAPSHOT_DIR = Paths.get(System.getProperty("user.home"), ".ntf", "snapshots");
+    private static final String STYLESHEET = JavaFX.class.getResource("/styles/forecast.css").toExternalForm();
+    private static final Path LOCATIONS = Paths.get(System.getProperty("user.home"), ".ntf", "locations.txt");
+    private static final Path POINT_INDEX = Paths.get(System.getProperty("user.home"), ".ntf", "points.idx");
+    private static final Path ADVISORIES = Paths.get(System.getProperty("user.home"), ".ntf", "advisories.txt");
     
     private Stage primaryStage;
     private Scene mainScene;
     private Scene forecastScene;
     private Scene sevenDayForecastScene;
+    private Scene hourlyForecastScene;
+    private Scene dashboardScene;
+    private Dashboard dashboard;
     private String detailedForecast;
     private ArrayList<weather.Period> forecast;
+    private Map<LocalDate, weather.DailySummary> dailySummaries;
     private BorderPane root;
+    private Button forecastButton;
+    private Button sevenDayButton;
+    private Button hourlyButton;
+    private Button dashboardButton;
+    private long startNanos;
+    private weather.ForecastSubscriptions subscriptions;
+    // Chicago unless -Dntf.location=lat,lon says otherwise
+    private volatile weather.GridPoint location = new weather.GridPoint("LOT", 76, 73);
+    private volatile String locationName = "Chicago, IL";
+    // read once by the load task, the rules behind the "Would I need to" panel
+    private volatile weather.AdvisoryTable advisories = weather.AdvisoryTable.DEFAULT;
 
     public static void main(String[] args) {
         launch(args);
@@ -46,247 +74,342 @@ public class JavaFX extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception {
+        startNanos = System.nanoTime();
+        weather.Metrics.registerMBean();
         this.primaryStage = primaryStage;
         primaryStage.setTitle("NTF - Nature's True Forecast");
         primaryStage.setResizable(false);
 
         
         initializeUI();
-        createForecastScene();
-        createSevenDayForecastScene();
         
         primaryStage.setScene(mainScene);
         primaryStage.show();
+        loadForecast();
     }
 
+    // window comes up straight away with a placeholder, the forecast fills in once it arrives
     private void initializeUI() {
-        forecast = weather.WeatherAPI.getForecast("LOT", 76, 73);
-        
-        if (forecast == null) {
-            throw new RuntimeException("Forecast did not load");
-        }
-
-    
         root = new BorderPane();
         root.setPadding(new Insets(10, 20, 20, 20));
 
-       
-        weather.Period today = forecast.get(0);
-        double tempC = (today.temperature - 32) * 5 / 9;
         GridPane calendarPane = createCalendarPane();
-        VBox weatherInfo = createWeatherInfoBox(today, tempC, forecast);
         HBox bottomBox = createBottomBox();
+        Label loadingLabel = new Label("Loading forecast...");
+        loadingLabel.setFont(Fonts.REGULAR_18);
 
-  
         root.setLeft(calendarPane);
-        root.setCenter(weatherInfo);
+        root.setCenter(loadingLabel);
         root.setBottom(bottomBox);
         
-        mainScene = new Scene(root, 1000, 700);
+        mainScene = newScene(root);
+        Runnable firstFrame = new Runnable() {
+            @Override
+            public void run() {
+                weather.Metrics.recordNanos("startup.firstFrame", System.nanoTime() - startNanos);
+                Platform.runLater(() -> mainScene.removePostLayoutPulseListener(this));
+            }
+        };
+        mainScene.addPostLayoutPulseListener(firstFrame);
+    }
+
+    private void loadForecast() {
+        Task<ArrayList<weather.Period>> task = new Task<>() {
+            @Override
+            protected ArrayList<weather.Period> call() {
+                openSnapshotStore();
+                advisories = loadAdvisories();
+                resolveLocation();
+                weather.GridPoint gp = location;
+                ArrayList<weather.Period> periods = weather.WeatherAPI.getForecast(gp.region(), gp.gridx(), gp.gridy());
+                if (periods == null || periods.isEmpty()) {
+                    throw new RuntimeException("Forecast did not load");
+                }
+                return periods;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            showForecast(task.getValue());
+            watchForUpdates();
+        });
+        task.setOnFailed(e -> showLoadError(task.getException()));
+        Thread loader = new Thread(task, "forecast-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // forecasts from the last run are reused from disk instead of being downloaded again
+    private void openSnapshotStore() {
+        if (weather.WeatherAPI.getSnapshotStore() != null) {
+            return;
+        }
+        try {
+            weather.WeatherAPI.useSnapshotStore(SNAPSHOT_DIR);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void resolveLocation() {
+        String property = System.getProperty("ntf.location");
+        if (property == null) {
+            return;
+        }
+        String[] latLon = property.split(",");
+        try {
+            weather.WeatherAPI.usePointIndex(POINT_INDEX);
+            weather.GridPoint gp = weather.WeatherAPI.resolve(Double.parseDouble(latLon[0].trim()), Double.parseDouble(latLon[1].trim()));
+            if (gp != null) {
+                location = gp;
+                locationName = property;
+            } else {
+                System.err.println("No NWS forecast covers " + property);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // NWS republishes roughly hourly; redraw whenever it actually does
+    private void watchForUpdates() {
+        subscriptions = new weather.ForecastSubscriptions();
+        subscriptions.subscribe(location, (gridPoint, updated) ->
+                Platform.runLater(() -> {
+                    forecastScene = null;
+                    sevenDayForecastScene = null;
+                    hourlyForecastScene = null;
+                    showForecast(updated.properties.periods);
+                }));
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (subscriptions != null) {
+            subscriptions.close();
+        }
+        if (dashboard != null) {
+            dashboard.close();
+        }
+        if (Boolean.getBoolean("weather.metrics.dump")) {
+            System.out.print(weather.Metrics.dump());
+        }
+        weather.WeatherAPI.getPointIndex().close();
+        weather.SnapshotStore store = weather.WeatherAPI.getSnapshotStore();
+        if (store != null) {
+            weather.WeatherAPI.setSnapshotStore(null);
+            store.close();
+        }
     }
+
+    private void showForecast(ArrayList<weather.Period> periods) {
+        forecast = periods;
+        timedBuild("main", () -> {
+            dailySummaries = weather.DailySummary.summarize(forecast, ZoneId.systemDefault());
+
+            weather.Period today = forecast.get(0);
+            double tempC = today.temperatureCelsius;
+            VBox weatherInfo = createWeatherInfoBox(today, tempC, forecast);
+            root.setCenter(weatherInfo);
+        });
+        forecastButton.setDisable(false);
+        sevenDayButton.setDisable(false);
+        hourlyButton.setDisable(false);
+        weather.Metrics.recordNanos("startup.forecastShown", System.nanoTime() - startNanos);
+    }
+
+    private void showLoadError(Throwable error) {
+        if (error != null) {
+            error.printStackTrace();
+        }
+        Label errorLabel = new Label("Forecast did not load");
+        errorLabel.setFont(Fonts.REGULAR_18);
+        root.setCenter(errorLabel);
+    }
+
+    // render.scene.<name> in Metrics, plus a JFR event for flight recordings
+    private static void timedBuild(String scene, Runnable build) {
+        weather.ForecastEvents.SceneBuild event = new weather.ForecastEvents.SceneBuild();
+        event.begin();
+        long start = System.nanoTime();
+        build.run();
+        weather.Metrics.recordNanos("render.scene." + scene, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.scene = scene;
+            event.commit();
+        }
+    }
+
     
   
+    // a virtualized list: only the visible rows have nodes, and those are recycled on scroll
     private void createSevenDayForecastScene() {
         VBox rootVBox = new VBox(10);
         rootVBox.setPadding(new Insets(6));
-        ScrollPane scrollPane = new ScrollPane();
-        scrollPane.setFitToWidth(true);
-        VBox forecastContent = new VBox(6);
-        forecastContent.setPadding(new Insets(6));
         Label forecastTitle = new Label("7 Day Forecast");
-        forecastTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
-        forecastContent.getChildren().add(forecastTitle);
-        LocalDate todayDate = LocalDate.now();
+        forecastTitle.getStyleClass().add("view-title");
 
+        ObservableList<weather.DailySummary> days = FXCollections.observableArrayList();
+        LocalDate todayDate = LocalDate.now();
         for (int i = 0; i < 7; i++) {
-            LocalDate dayDate = todayDate.plusDays(i);
-
-            ArrayList<weather.Period> dayPeriods = new ArrayList<>();
-            for (weather.Period p : forecast) {
-                LocalDate pDate = p.startTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                if (pDate.equals(dayDate)) {
-                    dayPeriods.add(p);
-                }
-            }
-
-            if (dayPeriods.isEmpty()) continue;
-
-            int high = -1000;
-            int low = 1000;
-            String shortForecast = "";
-            String windSpeed = "";
-            String windDirection = "";
-            int precipitation = 0;
-            for (weather.Period p : dayPeriods) {
-                int temp = (int) p.temperature;
-                if (temp > high) high = temp;
-                if (temp < low) low = temp;
-                if (shortForecast.isEmpty()) {
-                    shortForecast = p.shortForecast;
-                    windSpeed = p.windSpeed;
-                    windDirection = p.windDirection;
-                }
-                precipitation = Math.max(precipitation, p.probabilityOfPrecipitation.value);
+            weather.DailySummary day = dailySummaries.get(todayDate.plusDays(i));
+            if (day != null) {
+                days.add(day);
             }
+        }
+        ListView<weather.DailySummary> list = new ListView<>(days);
+        list.getStyleClass().add("forecast-list");
+        list.setFixedCellSize(DayCell.HEIGHT);
+        list.setCellFactory(v -> new DayCell());
+        VBox.setVgrow(list, Priority.ALWAYS);
 
-            int cHigh = (high - 32) * 5 / 9;
-            int cLow = (low - 32) * 5 / 9;
-
-            String dateStr = dayDate.getMonth().toString() + " " + dayDate.getDayOfMonth() + ", " + dayDate.getYear();
-            String gifPath = DEFAULT_GIF;
-            String forecastLower = shortForecast.toLowerCase();
-            if (forecastLower.contains("storm")) {
-                gifPath = STORMY_GIF;
-            } else if (forecastLower.contains("partly") && forecastLower.contains("sun")) {
-                gifPath = PARTLYSUNNY_GIF;
-            } else if (forecastLower.contains("sun")) {
-                gifPath = SUNNY_GIF;
-            } else if (forecastLower.contains("cloud")) {
-                gifPath = CLOUDY_GIF;
-            } else if (forecastLower.contains("rain")) {
-                gifPath = RAINY_GIF;
-            } else if (forecastLower.contains("snow")) {
-                gifPath = SNOWY_GIF;
-            } else if (forecastLower.contains("night") && forecastLower.contains("clear")) {
-                gifPath = NIGHT_GIF;
-            }
+        Button backButton = new Button("Back to Today's Forecast");
+        backButton.setOnAction(e -> primaryStage.setScene(mainScene));
+        rootVBox.getChildren().addAll(forecastTitle, list, backButton);
+        sevenDayForecastScene = newScene(rootVBox);
+    }
 
-            ImageView dayGif = new ImageView(new Image(getClass().getResourceAsStream(gifPath)));
-            dayGif.setFitWidth(50);
-            dayGif.setFitHeight(50);
-            dayGif.setPreserveRatio(true);
-            Label dateLabel = new Label(dateStr);
-            dateLabel.setFont(Font.font("Arial", FontWeight.BOLD, 15));
-            Label tempLabel = new Label(String.format("High: %d°F/%d°C   Low: %d°F/%d°C", high, cHigh, low, cLow));
-            tempLabel.setFont(Font.font("Arial", 11));
-            
-            Label conditionLabel = new Label("Condition: " + shortForecast);
-            conditionLabel.setFont(Font.font("Arial", 11));
-            
-            Label windLabel = new Label(String.format("Wind: %s %s", windSpeed, windDirection));
-            windLabel.setFont(Font.font("Arial", 11));
-            
-            Label precipitationLabel = new Label(String.format("Precipitation: %d%%", precipitation));
-            precipitationLabel.setFont(Font.font("Arial", 11));
-            
-            VBox textBox = new VBox(3);
-            
-            textBox.getChildren().add(dateLabel);
-            textBox.getChildren().add(tempLabel);
-            textBox.getChildren().add(conditionLabel);
-            textBox.getChildren().add(windLabel);
-            textBox.getChildren().add(precipitationLabel);
-            textBox.setAlignment(Pos.CENTER_LEFT);
-            
-            HBox dayBox = new HBox(11);
-            dayBox.getChildren().add(dayGif);
-            dayBox.getChildren().add(textBox);
-            dayBox.setAlignment(Pos.CENTER_LEFT);
-            dayBox.setStyle("-fx-background-color: #e0e0e0; -fx-padding: 11;");
-            dayBox.setMaxWidth(10000);
+    private void createHourlyForecastScene(weather.HourlySeries series) {
+        VBox rootVBox = new VBox(10);
+        rootVBox.setPadding(new Insets(6));
+        Label forecastTitle = new Label("Hourly Forecast");
+        forecastTitle.getStyleClass().add("view-title");
 
-            forecastContent.getChildren().add(dayBox);
+        // rows are indexes into the series, from the hour that is running now
+        ObservableList<Integer> hours = FXCollections.observableArrayList();
+        for (int i = series.firstEndingAfter(System.currentTimeMillis() / 1000); i < series.size(); i++) {
+            hours.add(i);
         }
+        ListView<Integer> list = new ListView<>(hours);
+        list.getStyleClass().add("forecast-list");
+        list.setFixedCellSize(HourCell.HEIGHT);
+        ZoneId zone = ZoneId.systemDefault();
+        list.setCellFactory(v -> new HourCell(series, zone));
+        VBox.setVgrow(list, Priority.ALWAYS);
 
-        scrollPane.setContent(forecastContent);
         Button backButton = new Button("Back to Today's Forecast");
         backButton.setOnAction(e -> primaryStage.setScene(mainScene));
-        rootVBox.getChildren().addAll(scrollPane, backButton);
-        sevenDayForecastScene = new Scene(rootVBox, 1000, 700);
+        rootVBox.getChildren().addAll(forecastTitle, list, backButton);
+        hourlyForecastScene = newScene(rootVBox);
     }
 
+    // hourly data is only fetched the first time the view is opened
+    private void showHourlyForecast() {
+        if (hourlyForecastScene != null) {
+            primaryStage.setScene(hourlyForecastScene);
+            return;
+        }
+        hourlyButton.setDisable(true);
+        weather.GridPoint gp = location;
+        Task<weather.HourlySeries> task = new Task<>() {
+            @Override
+            protected weather.HourlySeries call() {
+                weather.HourlySeries series = weather.WeatherAPI.getHourlyForecast(gp.region(), gp.gridx(), gp.gridy());
+                if (series == null || series.size() == 0) {
+                    throw new RuntimeException("Hourly forecast did not load");
+                }
+                return series;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            hourlyButton.setDisable(false);
+            timedBuild("hourly", () -> createHourlyForecastScene(task.getValue()));
+            primaryStage.setScene(hourlyForecastScene);
+        });
+        task.setOnFailed(e -> {
+            hourlyButton.setDisable(false);
+            task.getException().printStackTrace();
+        });
+        Thread loader = new Thread(task, "hourly-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // every saved location at once; tiles are patched in place as forecasts change
+    private void showDashboard() {
+        if (dashboardScene == null) {
+            timedBuild("dashboard", () -> {
+                List<weather.SavedLocation> locations;
+                try {
+                    locations = weather.SavedLocation.load(LOCATIONS);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    locations = weather.SavedLocation.DEFAULTS;
+                }
+                dashboard = new Dashboard(locations);
+                Button backButton = new Button("Back to Today's Forecast");
+                backButton.setOnAction(e -> primaryStage.setScene(mainScene));
+                BorderPane dashboardRoot = new BorderPane(dashboard.getView());
+                HBox bottom = new HBox(backButton);
+                bottom.setAlignment(Pos.CENTER);
+                bottom.setPadding(new Insets(10));
+                dashboardRoot.setBottom(bottom);
+                dashboardScene = newScene(dashboardRoot);
+            });
+            dashboard.start();
+        }
+        primaryStage.setScene(dashboardScene);
+    }
+
+    private static Scene newScene(Parent parent) {
+        Scene scene = new Scene(parent, 1000, 700);
+        scene.getStylesheets().add(STYLESHEET);
+        return scene;
+    }
 
-   
-    
-    
     private void createForecastScene() {
         BorderPane forecastRoot = new BorderPane();
         forecastRoot.setPadding(new Insets(10, 20, 20, 20));  
         VBox forecastContent = new VBox(20);
         forecastContent.setPadding(new Insets(20)); 
         Label forecastTitle = new Label("3 Day Forecast");
-        forecastTitle.setFont(Font.font("Arial", FontWeight.BOLD, 20));
+        forecastTitle.setFont(Fonts.BOLD_20);
         forecastContent.getChildren().add(forecastTitle);
         LocalDate todayDate = LocalDate.now();
         
         for (int i = 1; i < 4; i++) {
             LocalDate dayDate = todayDate.plusDays(i);
             
-            ArrayList<weather.Period> dayPeriods = new ArrayList<>();
-            for (weather.Period p : forecast) {
-                LocalDate pDate = p.startTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                if (pDate.equals(dayDate)) {
-                    dayPeriods.add(p);
-                }
-            }
-            
-            if (dayPeriods.isEmpty()) continue;
+            weather.DailySummary day = dailySummaries.get(dayDate);
+            if (day == null) continue;
             
-            int high = -1000;
-            int low = 1000;
-            String shortForecast = "";
-            String windSpeed = "";
-            String windDirection = "";
-            int precipitation = 0;
+            int high = day.high;
+            int low = day.low;
+            String shortForecast = day.shortForecast;
+            String windSpeed = day.windSpeed;
+            String windDirection = day.windDirection;
+            int precipitation = day.maxPrecipitation;
+            detailedForecast = day.detailedForecast;
             
-            for (weather.Period p : dayPeriods) {
-                int temp = (int)p.temperature;
-                if (temp > high) high = temp;
-                if (temp < low) low = temp;
-                if (shortForecast.isEmpty()) {
-                    shortForecast = p.shortForecast;
-                    windSpeed = p.windSpeed;
-                    windDirection = p.windDirection;
-                    precipitation = p.probabilityOfPrecipitation.value;
-                    detailedForecast = p.detailedForecast;
-                }
-            }
-            
-            int cHigh = (high - 32) * 5 / 9;
-            int cLow = (low - 32) * 5 / 9;
+            int cHigh = day.highCelsius();
+            int cLow = day.lowCelsius();
             
             String dateStr = dayDate.getMonth().toString() + " " + dayDate.getDayOfMonth() + ", " + dayDate.getYear();
             
-            String gifPath = DEFAULT_GIF;
-            String forecastLower = shortForecast.toLowerCase();
-            if (forecastLower.contains("storm")) {
-                gifPath = STORMY_GIF;
-            } else if (forecastLower.contains("partly") && forecastLower.contains("sun")) {
-                gifPath = PARTLYSUNNY_GIF;
-            } else if (forecastLower.contains("sun")) {
-                gifPath = SUNNY_GIF;
-            } else if (forecastLower.contains("cloud")) {
-                gifPath = CLOUDY_GIF;
-            } else if (forecastLower.contains("rain")) {
-                gifPath = RAINY_GIF;
-            } else if (forecastLower.contains("snow")) {
-                gifPath = SNOWY_GIF;
-            } else if (forecastLower.contains("night") && forecastLower.contains("clear")) {
-                gifPath = NIGHT_GIF;
-            } 
+            String gifPath = gifFor(weather.ConditionClassifier.classify(shortForecast));
             
-            ImageView dayGif = new ImageView(new Image(getClass().getResourceAsStream(gifPath)));
+            ImageView dayGif = new ImageView(ImageCache.get(gifPath, 80, 80));
             dayGif.setFitWidth(80);
             dayGif.setFitHeight(80);
             dayGif.setPreserveRatio(true);   
             
             Label dateLabel = new Label(dateStr);
-            dateLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));   
+            dateLabel.setFont(Fonts.BOLD_16);   
             
             Label tempLabel = new Label(String.format("High: %d°F/%d°C   Low: %d°F/%d°C", high, cHigh, low, cLow));
-            tempLabel.setFont(Font.font("Arial", 14));   
+            tempLabel.setFont(Fonts.REGULAR_14);   
             
             Label conditionLabel = new Label("Condition: " + shortForecast);
-            conditionLabel.setFont(Font.font("Arial", 14)); 
+            conditionLabel.setFont(Fonts.REGULAR_14); 
             
             Label windLabel = new Label(String.format("Wind: %s %s", windSpeed, windDirection));
-            windLabel.setFont(Font.font("Arial", 14));      
+            windLabel.setFont(Fonts.REGULAR_14);      
             
             Label precipitationLabel = new Label(String.format("Precipitation: %d%%", precipitation));
-            precipitationLabel.setFont(Font.font("Arial", 14));   
+            precipitationLabel.setFont(Fonts.REGULAR_14);   
             
             Label detailedForecastLabel = new Label("Forecast: " + detailedForecast);
-            detailedForecastLabel.setFont(Font.font("Arial", 14));
+            detailedForecastLabel.setFont(Fonts.REGULAR_14);
             detailedForecastLabel.setWrapText(true);     
             
             VBox textBox = new VBox(5);
@@ -302,7 +425,7 @@ public class JavaFX extends Application {
             dayBox.getChildren().add(dayGif);
             dayBox.getChildren().add(textBox);
             dayBox.setAlignment(Pos.CENTER_LEFT);
-            dayBox.setStyle("-fx-background-color: #e0e0e0; -fx-padding: 15;");
+            dayBox.getStyleClass().add("day-box");
             dayBox.setMaxWidth(10000);
             
             forecastContent.getChildren().add(dayBox);
@@ -315,7 +438,7 @@ public class JavaFX extends Application {
         forecastBottom.setPadding(new Insets(20));    
         forecastRoot.setCenter(forecastContent);
         forecastRoot.setBottom(forecastBottom);
-        forecastScene = new Scene(forecastRoot, 1000, 700);
+        forecastScene = newScene(forecastRoot);
     }
 
     private GridPane createCalendarPane() {
@@ -323,7 +446,7 @@ public class JavaFX extends Application {
         calendar.setPadding(new Insets(10, 5, 10, 10)); 
         calendar.setHgap(5);
         calendar.setVgap(5);
-        calendar.setStyle("-fx-background-color: #f0f0f0; -fx-padding: 10;");
+        calendar.getStyleClass().add("calendar");
         calendar.setMaxHeight(300);
 
         LocalDate now = LocalDate.now();
@@ -334,13 +457,13 @@ public class JavaFX extends Application {
         int daysInMonth = month.length(now.isLeapYear());
 
         Label monthLabel = new Label(month.toString() + " " + year);
-        monthLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
+        monthLabel.setFont(Fonts.BOLD_18);
         calendar.add(monthLabel, 0, 0, 7, 1);
 
         String[] days = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
         for (int i = 0; i < 7; i++) {
             Label dayLabel = new Label(days[i]);
-            dayLabel.setFont(Font.font("Arial", FontWeight.BOLD, 12));
+            dayLabel.setFont(Fonts.BOLD_12);
             calendar.add(dayLabel, i, 1);
         }
 
@@ -348,9 +471,9 @@ public class JavaFX extends Application {
         int row = 2;
         for (int day = 1; day <= daysInMonth; day++) {
             Label dayNumber = new Label(Integer.toString(day));
-            dayNumber.setFont(Font.font("Arial", 14));
+            dayNumber.setFont(Fonts.REGULAR_14);
             if (day == LocalDate.now().getDayOfMonth()) {
-                dayNumber.setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
+                dayNumber.getStyleClass().add("calendar-today");
             }
             calendar.add(dayNumber, column, row);
             column = (column + 1) % 7;
@@ -364,77 +487,54 @@ public class JavaFX extends Application {
     private VBox createWeatherInfoBox(weather.Period today, double tempC, ArrayList<weather.Period> forecast) {
         SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE MMMM dd");
         String formattedDate = dateFormat.format(today.startTime);
-        String bgImage = "/images/sunnyclear.jpg";
-        boolean isNight = false;
-        String forecastLower = today.shortForecast.toLowerCase();
-        String gifPath = DEFAULT_GIF;
-        if (forecastLower.contains("storm")) {
-            gifPath = STORMY_GIF;
-            bgImage = "/images/rainysky.jpg";
-        } else if (forecastLower.contains("partly") && forecastLower.contains("sun")) {
-            gifPath = PARTLYSUNNY_GIF;
-        } else if (forecastLower.contains("sun")) {
-            gifPath = SUNNY_GIF;
-        } else if (forecastLower.contains("cloud")) {
-            gifPath = CLOUDY_GIF;
-        } else if (forecastLower.contains("rain")) {
-            gifPath = RAINY_GIF;
-            bgImage = "/images/rainysky.jpg";
-        } else if (forecastLower.contains("snow")) {
-            gifPath = SNOWY_GIF;
-            bgImage = "/images/rainysky.jpg";
-        } else if (forecastLower.contains("night") || forecastLower.contains("clear")) {
+        String sky = "sky-sunny";
+        int keywords = weather.ConditionClassifier.keywords(today.shortForecast);
+        weather.Condition condition = weather.ConditionClassifier.classify(keywords);
+        String gifPath = gifFor(condition);
+        if (condition == weather.Condition.STORMY || condition == weather.Condition.RAINY || condition == weather.Condition.SNOWY) {
+            sky = "sky-rainy";
+        } else if (condition == weather.Condition.CLEAR_NIGHT
+                || (condition == weather.Condition.OTHER && (keywords & (weather.ConditionClassifier.NIGHT | weather.ConditionClassifier.CLEAR)) != 0)) {
+            // the main view also treats a bare "clear" or "night" as night time
             gifPath = NIGHT_GIF;
-            bgImage = "/images/nightsky.jpg";
-            isNight = true;
-        }
-        root.setStyle("-fx-background-image: url('" + bgImage + "'); -fx-background-size: cover;");
-        String textColor = "";
-        if (isNight) {
-            textColor = "-fx-text-fill: white;";
+            sky = "sky-night";
         }
-        Label cityLabel = new Label("Chicago, IL");
-        cityLabel.setFont(Font.font("Arial", FontWeight.BOLD, 32));
-        cityLabel.setStyle(textColor);
+        // .sky-night also turns the labels white
+        root.getStyleClass().removeAll("sky-sunny", "sky-rainy", "sky-night");
+        root.getStyleClass().add(sky);
+        Label cityLabel = new Label(locationName);
+        cityLabel.setFont(Fonts.BOLD_32);
         
         Label dateLabel = new Label(formattedDate);
-        dateLabel.setFont(Font.font("Arial", 18));
-        dateLabel.setStyle(textColor);
+        dateLabel.setFont(Fonts.REGULAR_18);
         
         Label conditionLabel = new Label(today.shortForecast + " conditions");
-        conditionLabel.setFont(Font.font("Arial", 16));
-        conditionLabel.setStyle(textColor);
+        conditionLabel.setFont(Fonts.REGULAR_16);
         
         Label tempLabel = new Label((int) today.temperature + "° F / " + String.format("%.1f", tempC) + "° C");
-        tempLabel.setFont(Font.font("Arial", FontWeight.BOLD, 28));
-        tempLabel.setStyle(textColor);
+        tempLabel.setFont(Fonts.BOLD_28);
         
         Label detailedForecastLabel = new Label("Forecast: " + today.detailedForecast);
-        detailedForecastLabel.setFont(Font.font("Arial", 14));
+        detailedForecastLabel.setFont(Fonts.REGULAR_14);
         detailedForecastLabel.setWrapText(true);
-        detailedForecastLabel.setStyle(textColor);
         
-        Label shouldILabel = new Label(getRecommendations(today));
-        shouldILabel.setFont(Font.font("Arial", 14));
-        shouldILabel.setStyle(textColor);
+        Label shouldILabel = new Label(getRecommendations(today, advisories));
+        shouldILabel.setFont(Fonts.REGULAR_14);
         
-        ImageView weatherGif = new ImageView(new Image(getClass().getResourceAsStream(gifPath)));
+        ImageView weatherGif = new ImageView(ImageCache.get(gifPath, 150, 150));
         weatherGif.setFitWidth(150);
         weatherGif.setFitHeight(150);
         weatherGif.setPreserveRatio(true);
         
         Label windLabel = new Label("Wind: " + today.windSpeed + " " + today.windDirection);
-        windLabel.setFont(Font.font("Arial", 14));
-        windLabel.setStyle(textColor);
+        windLabel.setFont(Fonts.REGULAR_14);
         
         Label precipitationLabel = new Label("Precipitation: " + today.probabilityOfPrecipitation.value + "%");
-        precipitationLabel.setFont(Font.font("Arial", 14));
-        precipitationLabel.setStyle(textColor);
+        precipitationLabel.setFont(Fonts.REGULAR_14);
         
         String highLow = calculateHighLow(forecast, today);
         Label highLowLabel = new Label(highLow);
-        highLowLabel.setFont(Font.font("Arial", 14));
-        highLowLabel.setStyle(textColor);
+        highLowLabel.setFont(Fonts.REGULAR_14);
         
         VBox leftBox = new VBox(20);
         leftBox.getChildren().addAll(cityLabel, dateLabel, conditionLabel, tempLabel, detailedForecastLabel, shouldILabel);
@@ -465,74 +565,78 @@ public class JavaFX extends Application {
 
     private String calculateHighLow(ArrayList<weather.Period> forecast, weather.Period today) {
         LocalDate todayDate = today.startTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        int high = Integer.MIN_VALUE;
-        int low = Integer.MAX_VALUE;
-        
-        for (weather.Period p : forecast) {
-            LocalDate pDate = p.startTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            if (pDate.equals(todayDate)) {
-                int temp = (int) p.temperature;
-                high = Math.max(high, temp);
-                low = Math.min(low, temp);
-            }
-        }
-        int c_high = (high - 32) * 5/9;
-        int c_low = (low - 32) * 5/9;
-        return String.format("High: %d°F / %d°C | Low: %d°F / %d°C", high, c_high, low, c_low);
+        weather.DailySummary day = dailySummaries.get(todayDate);
+        return String.format("High: %d°F / %d°C | Low: %d°F / %d°C", day.high, day.highCelsius(), day.low, day.lowCelsius());
     }
 
-    private String getRecommendations(weather.Period today) {
-        String wearHat;
-        if(today.temperature > 70) {
-            wearHat = "Yes"; 
-        } else {
-            wearHat = "No";
+    static String gifFor(weather.Condition condition) {
+        switch (condition) {
+            case STORMY: return STORMY_GIF;
+            case PARTLY_SUNNY: return PARTLYSUNNY_GIF;
+            case SUNNY: return SUNNY_GIF;
+            case CLOUDY: return CLOUDY_GIF;
+            case RAINY: return RAINY_GIF;
+            case SNOWY: return SNOWY_GIF;
+            case CLEAR_NIGHT: return NIGHT_GIF;
+            default: return DEFAULT_GIF;
         }
-        
-        String sunglasses;
-        if(today.shortForecast.toLowerCase().contains("sun")) {
-            sunglasses = "Yes";
-        } else {
-            sunglasses = "No";
-        }
-    
-        String jacket;
-        if(today.temperature < 60) {
-            jacket = "Yes";
-        } else {
-            jacket = "No";
+    }
+
+    private String getRecommendations(weather.Period today, weather.AdvisoryTable table) {
+        long mask = table.evaluate(today);
+        StringBuilder text = new StringBuilder("Would I need to:");
+        for (int r = 0; r < table.size(); r++) {
+            text.append('\n').append(table.rule(r).question).append(": ").append((mask & (1L << r)) != 0 ? "Yes" : "No");
         }
-    
-        String umbrella;
-        if(today.shortForecast.toLowerCase().contains("rain") || today.shortForecast.toLowerCase().contains("snow")) {
-            umbrella = "Yes"; 
-        } else {
-            umbrella = "No";
+        return text.toString();
+    }
+
+    // ~/.ntf/advisories.txt when there is one, see weather.AdvisoryRule for the format
+    private static weather.AdvisoryTable loadAdvisories() {
+        try {
+            return weather.AdvisoryTable.load(ADVISORIES);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return weather.AdvisoryTable.DEFAULT;
         }
-        
-        return "Would I need to:\n" +
-               "Wear a Hat?: " + wearHat + "\n" +
-               "Carry Sunglasses?: " + sunglasses + "\n" +
-               "Wear a Jacket?: " + jacket + "\n" +
-               "Carry an Umbrella?: " + umbrella;
     }
 
     private HBox createBottomBox() {
-        Button forecastButton = new Button("3 Day Forecast ");
-        forecastButton.setFont(Font.font("Arial", 14));
-        forecastButton.setStyle("-fx-padding: 8 15;");
-        forecastButton.setOnAction(e -> primaryStage.setScene(forecastScene));
+        // the forecast scenes are only built the first time they are opened
+        forecastButton = new Button("3 Day Forecast ");
+        forecastButton.getStyleClass().add("nav-button");
+        forecastButton.setDisable(true);
+        forecastButton.setOnAction(e -> {
+            if (forecastScene == null) {
+                timedBuild("threeDay", this::createForecastScene);
+            }
+            primaryStage.setScene(forecastScene);
+        });
         
-        Button sevenDayButton = new Button("7 Day Forecast ");
-        sevenDayButton.setFont(Font.font("Arial", 14));
-        sevenDayButton.setStyle("-fx-padding: 8 15;");
-        sevenDayButton.setOnAction(e -> primaryStage.setScene(sevenDayForecastScene));
+        sevenDayButton = new Button("7 Day Forecast ");
+        sevenDayButton.getStyleClass().add("nav-button");
+        sevenDayButton.setDisable(true);
+        sevenDayButton.setOnAction(e -> {
+            if (sevenDayForecastScene == null) {
+                timedBuild("sevenDay", this::createSevenDayForecastScene);
+            }
+            primaryStage.setScene(sevenDayForecastScene);
+        });
         
+        hourlyButton = new Button("Hourly Forecast ");
+        hourlyButton.getStyleClass().add("nav-button");
+        hourlyButton.setDisable(true);
+        hourlyButton.setOnAction(e -> showHourlyForecast());
+
+        dashboardButton = new Button("Dashboard ");
+        dashboardButton.getStyleClass().add("nav-button");
+        dashboardButton.setOnAction(e -> showDashboard());
+
         HBox bottomBox = new HBox(10);
         bottomBox.setAlignment(Pos.CENTER);
         bottomBox.setPadding(new Insets(20));
         bottomBox.setPrefWidth(Double.MAX_VALUE);
-        bottomBox.getChildren().addAll(forecastButton, sevenDayButton);
+        bottomBox.getChildren().addAll(forecastButton, sevenDayButton, hourlyButton, dashboardButton);
         BorderPane.setAlignment(bottomBox, Pos.CENTER);
         
         return bottomBox;
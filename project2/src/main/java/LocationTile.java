@@ -0,0 +1,75 @@
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+/*
+ * One dashboard location. The labels are bound to properties once; apply() only sets them,
+ * and a string property ignores a set to an equal value, so a refresh invalidates (and
+ * re-lays out) just the labels whose text actually changed.
+ */
+public class LocationTile extends VBox {
+    private static final double GIF_SIZE = 48;
+
+    private final StringProperty name = new SimpleStringProperty();
+    private final StringProperty temperature = new SimpleStringProperty();
+    private final StringProperty condition = new SimpleStringProperty();
+    private final StringProperty wind = new SimpleStringProperty();
+    private final StringProperty precipitation = new SimpleStringProperty();
+    private final StringProperty highLow = new SimpleStringProperty();
+    private final ObjectProperty<Image> icon = new SimpleObjectProperty<>();
+    private final String locationName;
+    private weather.TileState state;
+
+    public LocationTile(String locationName) {
+        super(4);
+        this.locationName = locationName;
+        getStyleClass().add("location-tile");
+        ImageView gif = new ImageView();
+        gif.setFitWidth(GIF_SIZE);
+        gif.setFitHeight(GIF_SIZE);
+        gif.setPreserveRatio(true);
+        gif.imageProperty().bind(icon);
+        Label temperatureLabel = bound(temperature, "tile-temperature");
+        HBox top = new HBox(10, gif, temperatureLabel);
+        top.setAlignment(Pos.CENTER_LEFT);
+        getChildren().addAll(bound(name, "tile-name"), top, bound(condition, "tile-text"),
+                bound(highLow, "tile-text"), bound(wind, "tile-text"), bound(precipitation, "tile-text"));
+        apply(weather.TileState.loading(locationName));
+    }
+
+    private static Label bound(StringProperty property, String styleClass) {
+        Label label = new Label();
+        label.getStyleClass().add(styleClass);
+        label.textProperty().bind(property);
+        return label;
+    }
+
+    public String getLocationName() {
+        return locationName;
+    }
+
+    public weather.TileState getState() {
+        return state;
+    }
+
+    // FX thread only
+    public void apply(weather.TileState next) {
+        name.set(next.name());
+        temperature.set(next.temperature());
+        condition.set(next.condition());
+        wind.set(next.wind());
+        precipitation.set(next.precipitation());
+        highLow.set(next.highLow());
+        if (state == null || state.icon() != next.icon()) {
+            icon.set(ImageCache.get(JavaFX.gifFor(next.icon()), GIF_SIZE, GIF_SIZE));
+        }
+        state = next;
+    }
+}
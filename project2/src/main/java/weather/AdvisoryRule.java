@@ -0,0 +1,139 @@
+package weather;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * One "should I ..." question answered from a forecast period, e.g. whether to carry an
+ * umbrella. Written one per line as name;question;conditions, where conditions are joined
+ * with & and all have to hold:
+ *
+ *   jacket;Wear a Jacket?;temperature < 60
+ *   umbrella;Carry an Umbrella?;forecast has rain|snow
+ *   scarf;Wear a Scarf?;temperature <= 35 & wind >= 15
+ *
+ * temperature is in Fahrenheit, precipitation is the percent chance, wind the top of the
+ * forecast range in mph; each takes <, <=, > or >=. forecast has matches any of the
+ * ConditionClassifier keywords (storm, partly, sun, cloud, rain, snow, night, clear).
+ * Blank lines and lines starting with # are ignored.
+ */
+public class AdvisoryRule {
+    public static final List<AdvisoryRule> DEFAULTS = List.of(
+            parse("hat;Wear a Hat?;temperature > 70"),
+            parse("sunglasses;Carry Sunglasses?;forecast has sun"),
+            parse("jacket;Wear a Jacket?;temperature < 60"),
+            parse("umbrella;Carry an Umbrella?;forecast has rain|snow"));
+
+    public final String name;
+    public final String question;
+    // inclusive bounds, Integer.MIN_VALUE / MAX_VALUE when a field is not constrained
+    public final int minTemperature;
+    public final int maxTemperature;
+    public final int minPrecipitation;
+    public final int maxPrecipitation;
+    public final int minWind;
+    public final int maxWind;
+    // ConditionClassifier keyword bits of which at least one must be present, 0 for any forecast
+    public final int keywords;
+
+    public AdvisoryRule(String name, String question, int minTemperature, int maxTemperature,
+                        int minPrecipitation, int maxPrecipitation, int minWind, int maxWind, int keywords) {
+        this.name = name;
+        this.question = question;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        this.minPrecipitation = minPrecipitation;
+        this.maxPrecipitation = maxPrecipitation;
+        this.minWind = minWind;
+        this.maxWind = maxWind;
+        this.keywords = keywords;
+    }
+
+    public static AdvisoryRule parse(String line) {
+        String[] f = line.split(";");
+        if (f.length != 3) {
+            throw new IllegalArgumentException("Expected name;question;conditions but got: " + line);
+        }
+        // [min, max] for temperature, precipitation and wind
+        int[] bounds = {Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Integer.MIN_VALUE, Integer.MAX_VALUE};
+        int keywords = 0;
+        for (String condition : f[2].split("&")) {
+            String[] c = condition.trim().split("\\s+");
+            if (c.length != 3) {
+                throw new IllegalArgumentException("Expected field op value but got '" + condition.trim() + "' in: " + line);
+            }
+            if (c[0].equals("forecast") && c[1].equals("has")) {
+                if (keywords != 0) {
+                    throw new IllegalArgumentException("Only one forecast condition per rule: " + line);
+                }
+                for (String k : c[2].split("\\|")) {
+                    int bit = ConditionClassifier.keyword(k);
+                    if (bit == 0) {
+                        throw new IllegalArgumentException("Unknown forecast keyword '" + k + "' in: " + line);
+                    }
+                    keywords |= bit;
+                }
+                continue;
+            }
+            int field = switch (c[0]) {
+                case "temperature" -> 0;
+                case "precipitation" -> 2;
+                case "wind" -> 4;
+                default -> throw new IllegalArgumentException("Unknown field '" + c[0] + "' in: " + line);
+            };
+            int value;
+            try {
+                value = Integer.parseInt(c[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number '" + c[2] + "' in: " + line);
+            }
+            switch (c[1]) {
+                case ">" -> bounds[field] = Math.max(bounds[field], value + 1);
+                case ">=" -> bounds[field] = Math.max(bounds[field], value);
+                case "<" -> bounds[field + 1] = Math.min(bounds[field + 1], value - 1);
+                case "<=" -> bounds[field + 1] = Math.min(bounds[field + 1], value);
+                default -> throw new IllegalArgumentException("Unknown operator '" + c[1] + "' in: " + line);
+            }
+        }
+        return new AdvisoryRule(f[0].trim(), f[1].trim(), bounds[0], bounds[1], bounds[2], bounds[3],
+                bounds[4], bounds[5], keywords);
+    }
+
+    // the rules in file, or DEFAULTS when there is no such file
+    public static List<AdvisoryRule> load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return DEFAULTS;
+        }
+        List<AdvisoryRule> rules = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        return rules;
+    }
+
+    // windMph is -1 when the period has no wind speed, so it fails any wind minimum
+    public boolean matches(int temperatureF, int precipitation, int windMph, int keywordBits) {
+        return temperatureF >= minTemperature && temperatureF <= maxTemperature
+                && precipitation >= minPrecipitation && precipitation <= maxPrecipitation
+                && windMph >= minWind && windMph <= maxWind
+                && (keywords == 0 || (keywordBits & keywords) != 0);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,212 @@
+package weather;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * A fixed set of AdvisoryRules compiled into per field threshold arrays, evaluated against
+ * every period of every gridpoint in a ForecastAnalytics in one pass. Answers are bits:
+ * rule r is bit r of a period's mask, and for each rule a bitset over all period rows.
+ *
+ * The pass works in blocks of 64 rows, each writing its own word of every rule's bitset, and
+ * splits the blocks into fork-join tasks of 16 words, so no two tasks share a word.
+ * Each bound pair is kept as min and span = max - min, so the inner loop does one unsigned
+ * compare per field, (x - min) <= span, with no branches on the data.
+ */
+public class AdvisoryTable {
+    public static final int MAX_RULES = 64;
+    public static final AdvisoryTable DEFAULT = new AdvisoryTable(AdvisoryRule.DEFAULTS);
+    // 1024 rows per fork-join task, enough work to be worth a task
+    private static final int WORDS_PER_TASK = 16;
+
+    private final AdvisoryRule[] rules;
+    private final int[] minTemperature;
+    private final int[] temperatureSpan;
+    private final int[] minPrecipitation;
+    private final int[] precipitationSpan;
+    private final int[] minWind;
+    private final int[] windSpan;
+    private final int[] keywords;
+    // a rule with an empty range (say temperature > 70 & temperature < 60) never holds
+    private final boolean[] empty;
+
+    public AdvisoryTable(List<AdvisoryRule> rules) {
+        if (rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("At most " + MAX_RULES + " rules, got " + rules.size());
+        }
+        this.rules = rules.toArray(new AdvisoryRule[0]);
+        int n = this.rules.length;
+        minTemperature = new int[n];
+        temperatureSpan = new int[n];
+        minPrecipitation = new int[n];
+        precipitationSpan = new int[n];
+        minWind = new int[n];
+        windSpan = new int[n];
+        keywords = new int[n];
+        empty = new boolean[n];
+        for (int r = 0; r < n; r++) {
+            AdvisoryRule rule = this.rules[r];
+            // spans wrap for wide ranges, which is still right read as unsigned
+            minTemperature[r] = rule.minTemperature;
+            temperatureSpan[r] = rule.maxTemperature - rule.minTemperature;
+            minPrecipitation[r] = rule.minPrecipitation;
+            precipitationSpan[r] = rule.maxPrecipitation - rule.minPrecipitation;
+            minWind[r] = rule.minWind;
+            windSpan[r] = rule.maxWind - rule.minWind;
+            keywords[r] = rule.keywords;
+            empty[r] = rule.minTemperature > rule.maxTemperature || rule.minPrecipitation > rule.maxPrecipitation
+                    || rule.minWind > rule.maxWind;
+        }
+    }
+
+    // the rules in file, or the defaults when there is no such file
+    public static AdvisoryTable load(Path file) throws IOException {
+        return new AdvisoryTable(AdvisoryRule.load(file));
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public AdvisoryRule rule(int r) {
+        return rules[r];
+    }
+
+    // bit number of the named rule, or -1
+    public int indexOf(String name) {
+        for (int r = 0; r < rules.length; r++) {
+            if (rules[r].name.equals(name)) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    // the rules one period satisfies, bit r for rule r
+    public long evaluate(int temperatureF, int precipitation, int windMph, int keywordBits) {
+        long mask = 0;
+        for (int r = 0; r < rules.length; r++) {
+            if (rules[r].matches(temperatureF, precipitation, windMph, keywordBits)) {
+                mask |= 1L << r;
+            }
+        }
+        return mask;
+    }
+
+    public long evaluate(Period p) {
+        int temperature = Temperature.isCelsius(p.temperatureUnit)
+                ? (int) Math.round(Temperature.toFahrenheit(p.temperature)) : p.temperature;
+        int precipitation = p.probabilityOfPrecipitation == null ? 0 : p.probabilityOfPrecipitation.value;
+        return evaluate(temperature, precipitation, p.windMaxMph, ConditionClassifier.keywords(p.shortForecast));
+    }
+
+    public Result evaluate(ForecastAnalytics analytics) {
+        int rows = analytics.periodCount();
+        int words = (rows + 63) >>> 6;
+        long[][] bits = new long[rules.length][words];
+        int tasks = (words + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            for (int w = t * WORDS_PER_TASK; w < Math.min(words, (t + 1) * WORDS_PER_TASK); w++) {
+                evaluateBlock(analytics, bits, w);
+            }
+        });
+        return new Result(this, analytics, bits);
+    }
+
+    private void evaluateBlock(ForecastAnalytics a, long[][] bits, int w) {
+        int from = w << 6;
+        int to = Math.min(a.periodCount(), from + 64);
+        short[] temperature = a.temperature;
+        byte[] precipitation = a.precipitation;
+        short[] wind = a.windMax;
+        int[] keywordBits = a.keywords;
+        for (int r = 0; r < rules.length; r++) {
+            if (empty[r]) {
+                continue;
+            }
+            int minT = minTemperature[r];
+            int spanT = temperatureSpan[r];
+            int minP = minPrecipitation[r];
+            int spanP = precipitationSpan[r];
+            int minW = minWind[r];
+            int spanW = windSpan[r];
+            int k = keywords[r];
+            long word = 0;
+            for (int i = from; i < to; i++) {
+                boolean hit = Integer.compareUnsigned(temperature[i] - minT, spanT) <= 0
+                        & Integer.compareUnsigned(precipitation[i] - minP, spanP) <= 0
+                        & Integer.compareUnsigned(wind[i] - minW, spanW) <= 0
+                        & (k == 0 | (keywordBits[i] & k) != 0);
+                // from is a multiple of 64, so i lands on bit i - from
+                word |= (hit ? 1L : 0L) << i;
+            }
+            bits[r][w] = word;
+        }
+    }
+
+    /*
+     * The answers for every period row of a ForecastAnalytics. Rows are numbered the way the
+     * analytics holds them: gridpoints in order, each gridpoint's periods oldest first.
+     */
+    public static class Result {
+        private final AdvisoryTable table;
+        private final ForecastAnalytics analytics;
+        private final long[][] bits;
+
+        Result(AdvisoryTable table, ForecastAnalytics analytics, long[][] bits) {
+            this.table = table;
+            this.analytics = analytics;
+            this.bits = bits;
+        }
+
+        public AdvisoryTable table() {
+            return table;
+        }
+
+        // the period rows rule r holds for, a copy
+        public BitSet periods(int r) {
+            return BitSet.valueOf(bits[r]);
+        }
+
+        public long mask(int row) {
+            long mask = 0;
+            for (int r = 0; r < bits.length; r++) {
+                mask |= ((bits[r][row >>> 6] >>> row) & 1L) << r;
+            }
+            return mask;
+        }
+
+        // rules that hold for some period of gp overlapping the window, 0 for an unknown gridpoint
+        public long mask(GridPoint gp, long fromEpochSecond, long toEpochSecond) {
+            int g = analytics.indexOf(gp);
+            if (g < 0) {
+                return 0;
+            }
+            long mask = 0;
+            for (int row = analytics.offset[g]; row < analytics.offset[g + 1]; row++) {
+                if (analytics.start[row] < toEpochSecond && analytics.end[row] > fromEpochSecond) {
+                    mask |= mask(row);
+                }
+            }
+            return mask;
+        }
+
+        // indexes into analytics.gridPoints() of every gridpoint where rule r holds in the window
+        public BitSet gridPoints(int r, long fromEpochSecond, long toEpochSecond) {
+            BitSet matched = new BitSet(analytics.size());
+            BitSet rows = periods(r);
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                if (analytics.start[row] < toEpochSecond && analytics.end[row] > fromEpochSecond) {
+                    int g = analytics.gridPointOf(row);
+                    matched.set(g);
+                    // the rest of this gridpoint's rows cannot add anything
+                    row = analytics.offset[g + 1] - 1;
+                }
+            }
+            return matched;
+        }
+    }
+}
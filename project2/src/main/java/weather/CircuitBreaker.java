@@ -0,0 +1,97 @@
+package weather;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/*
+ * Stops calling an upstream that keeps failing. After failureThreshold consecutive failures
+ * the circuit opens and requests fail fast; once openDuration has passed a single trial
+ * request is let through (half open) and its outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Clock clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.millis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                // half open: only the one trial request
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        failures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        trialInFlight = false;
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+
+    // for a request allowRequest let through that ended without an outcome (interrupted, or a
+    // bug rather than upstream failing), so a half open circuit lets the next trial through
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    // millis until an open circuit lets a trial request through, 0 when it would now
+    public synchronized long retryAfterMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openMillis - (clock.millis() - openedAt));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker[" + name + ", " + state + ", failures=" + failures + "]";
+    }
+}
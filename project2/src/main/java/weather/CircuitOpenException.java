@@ -0,0 +1,14 @@
+package weather;
+
+// thrown without calling upstream because its circuit breaker is open
+public class CircuitOpenException extends UpstreamException {
+    private static final long serialVersionUID = 1L;
+
+    // how long until the breaker lets a trial request through again
+    public final long retryAfterMillis;
+
+    public CircuitOpenException(String message, long retryAfterMillis, Throwable cause) {
+        super(message, cause);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
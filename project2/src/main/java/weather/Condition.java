@@ -0,0 +1,13 @@
+package weather;
+
+// the weather picture a shortForecast phrase boils down to
+public enum Condition {
+    STORMY,
+    PARTLY_SUNNY,
+    SUNNY,
+    CLOUDY,
+    RAINY,
+    SNOWY,
+    CLEAR_NIGHT,
+    OTHER
+}
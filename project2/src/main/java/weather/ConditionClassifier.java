@@ -0,0 +1,149 @@
+package weather;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Maps shortForecast phrases to a Condition. All keywords are found in one case-insensitive
+ * pass over the text with an Aho-Corasick automaton compiled once into a flat transition
+ * table, so nothing is lowercased or rescanned. NWS only uses a small set of phrases,
+ * so the keyword mask for each phrase is also memoized.
+ */
+public class ConditionClassifier {
+    public static final int STORM = 1;
+    public static final int PARTLY = 1 << 1;
+    public static final int SUN = 1 << 2;
+    public static final int CLOUD = 1 << 3;
+    public static final int RAIN = 1 << 4;
+    public static final int SNOW = 1 << 5;
+    public static final int NIGHT = 1 << 6;
+    public static final int CLEAR = 1 << 7;
+
+    private static final String[] KEYWORDS = {"storm", "partly", "sun", "cloud", "rain", "snow", "night", "clear"};
+    private static final int ALPHABET = 26;
+    private static final int MEMO_LIMIT = 4096;
+
+    // next state for (state * ALPHABET + letter), and the keywords that end in each state
+    private static final int[] TRANSITIONS;
+    private static final int[] OUTPUT;
+    private static final ConcurrentHashMap<String, Integer> MEMO = new ConcurrentHashMap<>();
+
+    static {
+        int maxStates = 1;
+        for (String k : KEYWORDS) {
+            maxStates += k.length();
+        }
+        int[] go = new int[maxStates * ALPHABET];
+        Arrays.fill(go, -1);
+        int[] out = new int[maxStates];
+        int states = 1;
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            int s = 0;
+            for (char c : KEYWORDS[k].toCharArray()) {
+                int idx = s * ALPHABET + (c - 'a');
+                if (go[idx] < 0) {
+                    go[idx] = states++;
+                }
+                s = go[idx];
+            }
+            out[s] |= 1 << k;
+        }
+        // breadth first over the trie filling in failure links as direct transitions
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = go[c];
+            if (next < 0) {
+                go[c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            out[s] |= out[fail[s]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int idx = s * ALPHABET + c;
+                int next = go[idx];
+                if (next < 0) {
+                    go[idx] = go[fail[s] * ALPHABET + c];
+                } else {
+                    fail[next] = go[fail[s] * ALPHABET + c];
+                    queue.add(next);
+                }
+            }
+        }
+        TRANSITIONS = Arrays.copyOf(go, states * ALPHABET);
+        OUTPUT = Arrays.copyOf(out, states);
+    }
+
+    private ConditionClassifier() {
+    }
+
+    public static Condition classify(String shortForecast) {
+        return classify(keywords(shortForecast));
+    }
+
+    // same precedence the UI has always used, storms first
+    public static Condition classify(int keywords) {
+        if ((keywords & STORM) != 0) return Condition.STORMY;
+        if ((keywords & (PARTLY | SUN)) == (PARTLY | SUN)) return Condition.PARTLY_SUNNY;
+        if ((keywords & SUN) != 0) return Condition.SUNNY;
+        if ((keywords & CLOUD) != 0) return Condition.CLOUDY;
+        if ((keywords & RAIN) != 0) return Condition.RAINY;
+        if ((keywords & SNOW) != 0) return Condition.SNOWY;
+        if ((keywords & (NIGHT | CLEAR)) == (NIGHT | CLEAR)) return Condition.CLEAR_NIGHT;
+        return Condition.OTHER;
+    }
+
+    // bit mask of the keyword constants found anywhere in the text, ignoring case
+    public static int keywords(String shortForecast) {
+        if (shortForecast == null) {
+            return 0;
+        }
+        Integer memo = MEMO.get(shortForecast);
+        if (memo != null) {
+            return memo;
+        }
+        int mask = scan(shortForecast);
+        if (MEMO.size() < MEMO_LIMIT) {
+            MEMO.put(shortForecast, mask);
+        }
+        return mask;
+    }
+
+    // the constant for a keyword by name ("rain" -> RAIN), 0 when it is not one
+    public static int keyword(String name) {
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            if (KEYWORDS[k].equalsIgnoreCase(name)) {
+                return 1 << k;
+            }
+        }
+        return 0;
+    }
+
+    public static boolean hasAny(String shortForecast, int keywords) {
+        return (keywords(shortForecast) & keywords) != 0;
+    }
+
+    // bypasses the memo
+    public static int scan(CharSequence text) {
+        int state = 0;
+        int mask = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c < 'a' || c > 'z') {
+                state = 0;
+                continue;
+            }
+            state = TRANSITIONS[state * ALPHABET + (c - 'a')];
+            mask |= OUTPUT[state];
+        }
+        return mask;
+    }
+}
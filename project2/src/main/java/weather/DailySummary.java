@@ -0,0 +1,156 @@
+package weather;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Roll up of all the periods that start on one local date. summarize() buckets a whole
+ * forecast in a single pass; since periods arrive in time order it only converts to a
+ * LocalDate when a period crosses into a new day.
+ * The condition is the day's dominant one, the shortForecast covering the most hours (the
+ * earliest on a tie); wind and detailed text come from the first period with that condition.
+ * Periods sent in °C are compared by their Celsius value like the °F ones, so high and low
+ * are always °F.
+ */
+public class DailySummary {
+    private static final long HOUR = 3600_000L;
+    public final LocalDate date;
+    public int periodCount;
+    // °F, whatever unit the periods came in
+    public int high = Integer.MIN_VALUE;
+    public int low = Integer.MAX_VALUE;
+    private double highC = Double.NEGATIVE_INFINITY;
+    private double lowC = Double.POSITIVE_INFINITY;
+    public int maxPrecipitation;
+    // highest wind speed of the day in mph, -1 if no period had one
+    public int maxWindMph = -1;
+    public String shortForecast;
+    public String detailedForecast;
+    public String windSpeed;
+    public String windDirection;
+    // each condition seen so far, usually only a handful a day
+    private final Map<String, Condition> conditions = new LinkedHashMap<>(4);
+    private Condition dominant;
+
+    // the first period with a condition, and how long all periods with it last
+    private static class Condition {
+        final String shortForecast;
+        final String detailedForecast;
+        final String windSpeed;
+        final String windDirection;
+        long millis;
+
+        Condition(String shortForecast, String detailedForecast, String windSpeed, String windDirection) {
+            this.shortForecast = shortForecast;
+            this.detailedForecast = detailedForecast;
+            this.windSpeed = windSpeed;
+            this.windDirection = windDirection;
+        }
+    }
+
+    public DailySummary(LocalDate date) {
+        this.date = date;
+    }
+
+    // rounded to the nearest degree
+    public int highCelsius() {
+        return (int) Math.round(highC);
+    }
+
+    public int lowCelsius() {
+        return (int) Math.round(lowC);
+    }
+
+    void add(long durationMillis, int temperature, String temperatureUnit, int precipitation, int windMph, String shortForecast,
+             String detailedForecast, String windSpeed, String windDirection) {
+        periodCount++;
+        Condition c = conditions.computeIfAbsent(shortForecast,
+                k -> new Condition(shortForecast, detailedForecast, windSpeed, windDirection));
+        c.millis += durationMillis;
+        if (dominant == null || (c != dominant && c.millis > dominant.millis)) {
+            dominant = c;
+            this.shortForecast = c.shortForecast;
+            this.detailedForecast = c.detailedForecast;
+            this.windSpeed = c.windSpeed;
+            this.windDirection = c.windDirection;
+        }
+        double celsius = Temperature.celsius(temperature, temperatureUnit);
+        if (celsius > highC || celsius < lowC) {
+            int fahrenheit = Temperature.isCelsius(temperatureUnit)
+                    ? (int) Math.round(Temperature.toFahrenheit(temperature)) : temperature;
+            if (celsius > highC) {
+                highC = celsius;
+                high = fahrenheit;
+            }
+            if (celsius < lowC) {
+                lowC = celsius;
+                low = fahrenheit;
+            }
+        }
+        if (precipitation > maxPrecipitation) maxPrecipitation = precipitation;
+        if (windMph > maxWindMph) maxWindMph = windMph;
+    }
+
+    // days in the order they first appear in the forecast
+    public static Map<LocalDate, DailySummary> summarize(List<Period> periods, ZoneId zone) {
+        DayBuckets buckets = new DayBuckets(zone);
+        for (Period p : periods) {
+            DailySummary day = buckets.dayOf(p.startTime.getTime());
+            day.add(p.endTime == null ? HOUR : p.endTime.getTime() - p.startTime.getTime(),
+                    p.temperature, p.temperatureUnit,
+                    p.probabilityOfPrecipitation == null ? 0 : p.probabilityOfPrecipitation.value,
+                    p.windMaxMph,
+                    p.shortForecast, p.detailedForecast, p.windSpeed, p.windDirection);
+        }
+        return buckets.days;
+    }
+
+    public static Map<LocalDate, DailySummary> summarize(ForecastSeries series, ZoneId zone) {
+        DayBuckets buckets = new DayBuckets(zone);
+        for (int i = 0; i < series.size(); i++) {
+            DailySummary day = buckets.dayOf(series.startEpochSecond(i) * 1000);
+            long end = series.endEpochSecond(i);
+            day.add(end == 0 ? HOUR : (end - series.startEpochSecond(i)) * 1000,
+                    series.temperature(i), series.temperatureUnit(i), series.precipitation(i), series.windMaxMph(i),
+                    series.shortForecast(i), null, windSpeed(series.windMinMph(i), series.windMaxMph(i)),
+                    series.windDirection(i));
+        }
+        return buckets.days;
+    }
+
+    // the text form NWS uses, e.g. "5 to 10 mph", as HourlySeries.toPeriod writes it; null when
+    // the period had no wind speed
+    static String windSpeed(int minMph, int maxMph) {
+        if (minMph < 0) {
+            return null;
+        }
+        return minMph == maxMph ? minMph + " mph" : minMph + " to " + maxMph + " mph";
+    }
+
+    private static class DayBuckets {
+        final ZoneId zone;
+        final Map<LocalDate, DailySummary> days = new LinkedHashMap<>();
+        DailySummary current;
+        long dayStart;
+        long dayEnd;
+
+        DayBuckets(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        DailySummary dayOf(long epochMilli) {
+            if (current != null && epochMilli >= dayStart && epochMilli < dayEnd) {
+                return current;
+            }
+            LocalDate date = Instant.ofEpochMilli(epochMilli).atZone(zone).toLocalDate();
+            current = days.computeIfAbsent(date, DailySummary::new);
+            dayStart = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            dayEnd = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return current;
+        }
+    }
+}
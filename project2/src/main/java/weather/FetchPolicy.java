@@ -0,0 +1,54 @@
+package weather;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Timeouts, retry and circuit breaker settings for upstream fetches.
+ * Retries back off exponentially with full jitter: attempt n waits a random time in
+ * [0, min(maxBackoff, baseBackoff * 2^(n-1))].
+ */
+public class FetchPolicy {
+    public static final FetchPolicy DEFAULT = new FetchPolicy(
+            Duration.ofSeconds(5), Duration.ofSeconds(15), 3,
+            Duration.ofMillis(200), Duration.ofSeconds(5),
+            5, Duration.ofSeconds(30));
+
+    public final Duration connectTimeout;
+    public final Duration requestTimeout;
+    public final int maxAttempts;
+    public final Duration baseBackoff;
+    public final Duration maxBackoff;
+    // consecutive failures that open the circuit, and how long it stays open
+    public final int failureThreshold;
+    public final Duration openDuration;
+
+    public FetchPolicy(Duration connectTimeout, Duration requestTimeout, int maxAttempts,
+                       Duration baseBackoff, Duration maxBackoff,
+                       int failureThreshold, Duration openDuration) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    // how long to wait before retry number `attempt` (1 = first retry)
+    public long backoffMillis(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), baseBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    // 429 and 5xx are worth trying again, other statuses will not change on their own
+    public static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+}
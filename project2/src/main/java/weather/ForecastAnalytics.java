@@ -0,0 +1,246 @@
+package weather;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * Read-only queries across the forecasts of many gridpoints at once, e.g. every gridpoint
+ * with a 70% chance of rain in the next 48 hours, or the warmest gridpoints of a region.
+ *
+ * The periods of all gridpoints are copied into one set of primitive columns, gridpoint g
+ * owning rows [offset[g], offset[g + 1]). Queries are parallel streams over gridpoint
+ * indexes, which split evenly on the common fork-join pool, and each gridpoint is a short
+ * scan over its own rows. Temperatures are kept in Fahrenheit whatever unit they came in,
+ * so gridpoints can be ranked against each other.
+ *
+ * A snapshot: build a new one to see newer forecasts.
+ */
+public class ForecastAnalytics {
+    // a gridpoint and the value it was ranked by
+    public record Ranked(GridPoint gridPoint, int value) {
+    }
+
+    public record RegionExtremes(String region, Ranked high, Ranked low) {
+    }
+
+    private static final Comparator<GridPoint> GRID_ORDER = Comparator.comparing(GridPoint::region)
+            .thenComparingInt(GridPoint::gridx).thenComparingInt(GridPoint::gridy);
+
+    // package private so AdvisoryTable can run its rules straight over the columns
+    final GridPoint[] gridPoints;
+    final int[] offset;
+    final long[] start;
+    final long[] end;
+    final short[] temperature;
+    final byte[] precipitation;
+    final short[] windMax;
+    // ConditionClassifier keyword bits of each period's shortForecast
+    final int[] keywords;
+
+    // gridpoints are held (and reported) in region, x, y order
+    public ForecastAnalytics(Map<GridPoint, ForecastSeries> forecasts) {
+        gridPoints = forecasts.keySet().toArray(new GridPoint[0]);
+        Arrays.sort(gridPoints, GRID_ORDER);
+        offset = new int[gridPoints.length + 1];
+        for (int g = 0; g < gridPoints.length; g++) {
+            offset[g + 1] = offset[g] + forecasts.get(gridPoints[g]).size();
+        }
+        int rows = offset[gridPoints.length];
+        start = new long[rows];
+        end = new long[rows];
+        temperature = new short[rows];
+        precipitation = new byte[rows];
+        windMax = new short[rows];
+        keywords = new int[rows];
+        for (int g = 0; g < gridPoints.length; g++) {
+            ForecastSeries s = forecasts.get(gridPoints[g]);
+            for (int i = 0, row = offset[g]; i < s.size(); i++, row++) {
+                start[row] = s.startEpochSecond(i);
+                end[row] = s.endEpochSecond(i);
+                int t = s.temperature(i);
+                if (Temperature.isCelsius(s.temperatureUnit(i))) {
+                    t = (int) Math.round(Temperature.toFahrenheit(t));
+                }
+                temperature[row] = (short) t;
+                precipitation[row] = (byte) s.precipitation(i);
+                windMax[row] = (short) s.windMaxMph(i);
+                keywords[row] = ConditionClassifier.keywords(s.shortForecast(i));
+            }
+        }
+    }
+
+    // every forecast the cache holds, stale ones included
+    public static ForecastAnalytics fromCache(ForecastCache cache) {
+        StringDictionary dictionary = new StringDictionary();
+        Map<GridPoint, ForecastSeries> forecasts = new LinkedHashMap<>();
+        for (Map.Entry<GridPoint, ForecastCache.Entry> e : cache.entries().entrySet()) {
+            Root root = e.getValue().root;
+            if (root.properties != null && root.properties.periods != null) {
+                forecasts.put(e.getKey(), ForecastSeries.from(root.properties.periods, dictionary));
+            }
+        }
+        return new ForecastAnalytics(forecasts);
+    }
+
+    // the newest stored forecast of every gridpoint in the store
+    public static ForecastAnalytics fromSnapshots(SnapshotStore store) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        Map<GridPoint, ForecastSeries> forecasts = new LinkedHashMap<>();
+        for (GridPoint gp : store.gridPoints()) {
+            ForecastCache.Entry e = store.latest(gp);
+            if (e != null && e.root.properties != null && e.root.properties.periods != null) {
+                forecasts.put(gp, ForecastSeries.from(e.root.properties.periods, dictionary));
+            }
+        }
+        return new ForecastAnalytics(forecasts);
+    }
+
+    public int size() {
+        return gridPoints.length;
+    }
+
+    public int periodCount() {
+        return start.length;
+    }
+
+    public List<GridPoint> gridPoints() {
+        return List.of(gridPoints);
+    }
+
+    // index of gp in gridPoints(), or -1
+    public int indexOf(GridPoint gp) {
+        int g = Arrays.binarySearch(gridPoints, gp, GRID_ORDER);
+        return g < 0 ? -1 : g;
+    }
+
+    // the gridpoint index owning a period row
+    int gridPointOf(int row) {
+        int g = Arrays.binarySearch(offset, row);
+        if (g < 0) {
+            return -g - 2;
+        }
+        // gridpoints without periods share their offset with the next one
+        while (offset[g + 1] == row) {
+            g++;
+        }
+        return g;
+    }
+
+    /*
+     * Gridpoints with at least `percent` chance of precipitation in some period overlapping
+     * [fromEpochSecond, toEpochSecond).
+     */
+    public List<GridPoint> precipitationAtLeast(int percent, long fromEpochSecond, long toEpochSecond) {
+        return IntStream.range(0, gridPoints.length).parallel()
+                .filter(g -> maxPrecipitation(g, fromEpochSecond, toEpochSecond) >= percent)
+                .mapToObj(g -> gridPoints[g])
+                .toList();
+    }
+
+    // gridpoints with a forecast wind of at least `mph` in some period overlapping the window
+    public List<GridPoint> windAtLeast(int mph, long fromEpochSecond, long toEpochSecond) {
+        return IntStream.range(0, gridPoints.length).parallel()
+                .filter(g -> maxWind(g, fromEpochSecond, toEpochSecond) >= mph)
+                .mapToObj(g -> gridPoints[g])
+                .toList();
+    }
+
+    // up to `limit` gridpoints by highest temperature in the window, warmest first
+    public List<Ranked> warmest(long fromEpochSecond, long toEpochSecond, int limit) {
+        return IntStream.range(0, gridPoints.length).parallel()
+                .mapToObj(g -> new Ranked(gridPoints[g], high(g, fromEpochSecond, toEpochSecond)))
+                .filter(r -> r.value() != Integer.MIN_VALUE)
+                .sorted(Comparator.comparingInt(Ranked::value).reversed()
+                        .thenComparing(Ranked::gridPoint, GRID_ORDER))
+                .limit(limit)
+                .toList();
+    }
+
+    // up to `limit` gridpoints by lowest temperature in the window, coldest first
+    public List<Ranked> coldest(long fromEpochSecond, long toEpochSecond, int limit) {
+        return IntStream.range(0, gridPoints.length).parallel()
+                .mapToObj(g -> new Ranked(gridPoints[g], low(g, fromEpochSecond, toEpochSecond)))
+                .filter(r -> r.value() != Integer.MAX_VALUE)
+                .sorted(Comparator.comparingInt(Ranked::value)
+                        .thenComparing(Ranked::gridPoint, GRID_ORDER))
+                .limit(limit)
+                .toList();
+    }
+
+    // the warmest and coldest gridpoint of each region (forecast office) over the window
+    public Map<String, RegionExtremes> regionalExtremes(long fromEpochSecond, long toEpochSecond) {
+        return IntStream.range(0, gridPoints.length).parallel()
+                .filter(g -> overlaps(g, fromEpochSecond, toEpochSecond))
+                .boxed()
+                .collect(Collectors.toMap(g -> gridPoints[g].region(),
+                        g -> new RegionExtremes(gridPoints[g].region(),
+                                new Ranked(gridPoints[g], high(g, fromEpochSecond, toEpochSecond)),
+                                new Ranked(gridPoints[g], low(g, fromEpochSecond, toEpochSecond))),
+                        ForecastAnalytics::merge, TreeMap::new));
+    }
+
+    // the encounter order of the stream keeps ties going to the earlier gridpoint
+    private static RegionExtremes merge(RegionExtremes a, RegionExtremes b) {
+        Ranked high = b.high().value() > a.high().value() ? b.high() : a.high();
+        Ranked low = b.low().value() < a.low().value() ? b.low() : a.low();
+        return new RegionExtremes(a.region(), high, low);
+    }
+
+    private boolean overlaps(int g, long from, long to) {
+        for (int row = offset[g]; row < offset[g + 1]; row++) {
+            if (start[row] < to && end[row] > from) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int maxPrecipitation(int g, long from, long to) {
+        int max = 0;
+        for (int row = offset[g]; row < offset[g + 1]; row++) {
+            if (start[row] < to && end[row] > from) {
+                max = Math.max(max, precipitation[row]);
+            }
+        }
+        return max;
+    }
+
+    private int maxWind(int g, long from, long to) {
+        int max = -1;
+        for (int row = offset[g]; row < offset[g + 1]; row++) {
+            if (start[row] < to && end[row] > from) {
+                max = Math.max(max, windMax[row]);
+            }
+        }
+        return max;
+    }
+
+    // Integer.MIN_VALUE when no period overlaps the window
+    private int high(int g, long from, long to) {
+        int max = Integer.MIN_VALUE;
+        for (int row = offset[g]; row < offset[g + 1]; row++) {
+            if (start[row] < to && end[row] > from) {
+                max = Math.max(max, temperature[row]);
+            }
+        }
+        return max;
+    }
+
+    // Integer.MAX_VALUE when no period overlaps the window
+    private int low(int g, long from, long to) {
+        int min = Integer.MAX_VALUE;
+        for (int row = offset[g]; row < offset[g + 1]; row++) {
+            if (start[row] < to && end[row] > from) {
+                min = Math.min(min, temperature[row]);
+            }
+        }
+        return min;
+    }
+}
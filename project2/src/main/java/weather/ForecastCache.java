@@ -0,0 +1,246 @@
+package weather;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/*
+ * Bounded LRU cache of parsed forecasts keyed by gridpoint.
+ * An entry stays fresh until the next expected NWS update, worked out from
+ * Properties.updateTime (or generatedAt). Concurrent misses on the same gridpoint
+ * share a single upstream load.
+ */
+public class ForecastCache {
+    public static final Duration DEFAULT_UPDATE_INTERVAL = Duration.ofHours(1);
+    public static final Duration MIN_TTL = Duration.ofMinutes(1);
+
+    // a parsed forecast plus the validators the server sent with it (either may be null)
+    public static final class Entry {
+        public final Root root;
+        public final String etag;
+        public final String lastModified;
+
+        public Entry(Root root, String etag, String lastModified) {
+            this.root = root;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    // previous is the last value we had for the key (possibly expired), or null.
+    // Returning previous itself means upstream confirmed it is unchanged.
+    public interface Loader {
+        Entry load(GridPoint key, Entry previous);
+    }
+
+    private static class Slot {
+        final Entry entry;
+        final long expiresAt;
+
+        Slot(Entry entry, long expiresAt) {
+            this.entry = entry;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final Duration updateInterval;
+    private final Loader loader;
+    private final Clock clock;
+    // access ordered, guarded by this
+    private final LinkedHashMap<GridPoint, Slot> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<GridPoint, CompletableFuture<Root>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    public ForecastCache(int maxEntries, Function<GridPoint, Root> loader) {
+        this(maxEntries, DEFAULT_UPDATE_INTERVAL, loader, Clock.systemUTC());
+    }
+
+    public ForecastCache(int maxEntries, Duration updateInterval, Function<GridPoint, Root> loader, Clock clock) {
+        this(maxEntries, updateInterval, unconditional(loader), clock);
+    }
+
+    public ForecastCache(int maxEntries, Loader loader) {
+        this(maxEntries, DEFAULT_UPDATE_INTERVAL, loader, Clock.systemUTC());
+    }
+
+    public ForecastCache(int maxEntries, Duration updateInterval, Loader loader, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.updateInterval = updateInterval;
+        this.loader = loader;
+        this.clock = clock;
+    }
+
+    // returns the cached forecast, loading it (once, however many callers are waiting) when missing or expired
+    public Root get(GridPoint key) {
+        Root cached = getIfFresh(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<Root> mine = new CompletableFuture<>();
+        CompletableFuture<Root> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            // someone may have finished loading between our miss and registering the flight
+            Root r = getIfFresh(key);
+            if (r == null) {
+                r = load(key);
+            }
+            mine.complete(r);
+            return r;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // goes upstream even if the entry is still fresh, revalidating with whatever we already hold
+    public Root refresh(GridPoint key) {
+        return load(key);
+    }
+
+    private Root load(GridPoint key) {
+        loads.incrementAndGet();
+        Entry previous = getEntry(key);
+        Entry loaded = loader.load(key, previous);
+        if (loaded == null || loaded.root == null) {
+            return null;
+        }
+        put(key, loaded);
+        return loaded.root;
+    }
+
+    public synchronized Root getIfFresh(GridPoint key) {
+        Slot s = entries.get(key);
+        if (s == null || s.expiresAt <= clock.millis()) {
+            return null;
+        }
+        return s.entry.root;
+    }
+
+    // last value we had, even if it is past its ttl
+    public Root getStale(GridPoint key) {
+        Entry e = getEntry(key);
+        return e == null ? null : e.root;
+    }
+
+    public synchronized Entry getEntry(GridPoint key) {
+        Slot s = entries.get(key);
+        return s == null ? null : s.entry;
+    }
+
+    public void put(GridPoint key, Root root) {
+        put(key, new Entry(root, null, null));
+    }
+
+    public void put(GridPoint key, Entry entry) {
+        insert(key, new Slot(entry, expiresAt(entry.root, clock.millis())));
+    }
+
+    // holds entry as already expired, e.g. one restored from disk: the next get revalidates it
+    // upstream (cheaply, with its validators) instead of serving it as current
+    public void putStale(GridPoint key, Entry entry) {
+        insert(key, new Slot(entry, 0));
+    }
+
+    private void insert(GridPoint key, Slot slot) {
+        synchronized (this) {
+            entries.put(key, slot);
+            Iterator<Map.Entry<GridPoint, Slot>> it = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void invalidate(GridPoint key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // a copy of every entry, least recently used first, stale ones included
+    public synchronized Map<GridPoint, Entry> entries() {
+        Map<GridPoint, Entry> copy = new LinkedHashMap<>();
+        for (Map.Entry<GridPoint, Slot> e : entries.entrySet()) {
+            copy.put(e.getKey(), e.getValue().entry);
+        }
+        return copy;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static Loader unconditional(Function<GridPoint, Root> loader) {
+        return (key, previous) -> {
+            Root r = loader.apply(key);
+            return r == null ? null : new Entry(r, null, null);
+        };
+    }
+
+    long expiresAt(Root root, long now) {
+        Date base = null;
+        if (root.properties != null) {
+            base = root.properties.updateTime != null ? root.properties.updateTime : root.properties.generatedAt;
+        }
+        long from = base == null ? now : Math.min(base.getTime(), now);
+        long expires = from + updateInterval.toMillis();
+        return Math.max(expires, now + MIN_TTL.toMillis());
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public long loadCount() {
+        return loads.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ForecastCache[size=" + size() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", loads=" + loads + "]";
+    }
+}
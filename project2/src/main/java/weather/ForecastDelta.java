@@ -0,0 +1,407 @@
+package weather;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * The difference between two versions of one gridpoint's forecast, as compact bytes that
+ * rebuild the newer version from the older one. A refresh mostly repeats the periods it
+ * had with a few numbers and phrases changed, so only what changed is written:
+ *
+ *   - header and Properties fields behind a bit mask of the ones that differ
+ *   - per period, the index of the base period with the same startTime (0 for a new
+ *     period, diffed against an empty one), a mask of the fields that differ and their values
+ *
+ * Integers and dates are zigzag varints of the difference from the base value, strings are a
+ * varint length + 1 (0 for null) and utf-8. Geometry coordinates are not kept, the same as in
+ * SnapshotStore's full records.
+ */
+public final class ForecastDelta {
+    // Period fields, as bits of a change mask
+    public static final int NUMBER = 1;
+    public static final int NAME = 1 << 1;
+    public static final int START_TIME = 1 << 2;
+    public static final int END_TIME = 1 << 3;
+    public static final int DAYTIME = 1 << 4;
+    public static final int TEMPERATURE = 1 << 5;
+    public static final int TEMPERATURE_UNIT = 1 << 6;
+    public static final int TEMPERATURE_TREND = 1 << 7;
+    public static final int PRECIPITATION = 1 << 8;
+    public static final int WIND_SPEED = 1 << 9;
+    public static final int WIND_DIRECTION = 1 << 10;
+    public static final int ICON = 1 << 11;
+    public static final int SHORT_FORECAST = 1 << 12;
+    public static final int DETAILED_FORECAST = 1 << 13;
+
+    // header and Properties fields
+    private static final int ETAG = 1;
+    private static final int LAST_MODIFIED = 1 << 1;
+    private static final int TYPE = 1 << 2;
+    private static final int GEOMETRY = 1 << 3;
+    private static final int UNITS = 1 << 4;
+    private static final int GENERATOR = 1 << 5;
+    private static final int GENERATED_AT = 1 << 6;
+    private static final int UPDATE_TIME = 1 << 7;
+    private static final int VALID_TIMES = 1 << 8;
+    private static final int ELEVATION = 1 << 9;
+
+    private static final Period EMPTY_PERIOD = new Period();
+    private static final Properties EMPTY_PROPERTIES = new Properties();
+
+    // a period of the newer forecast and which of its fields differ from the older one
+    // (before is null, and fields has every bit, for a period the older forecast did not have)
+    public record Change(Period before, Period after, int fields) {
+        public boolean changed(int field) {
+            return (fields & field) != 0;
+        }
+    }
+
+    private ForecastDelta() {
+    }
+
+    /*
+     * The periods of after that are new or differ from the period with the same startTime in
+     * before, in after's order. Periods that have simply ended are not reported.
+     */
+    public static List<Change> changes(Root before, Root after) {
+        List<Period> base = periods(before);
+        List<Period> next = periods(after);
+        Map<Date, Integer> byStart = indexByStart(base);
+        List<Change> changes = new ArrayList<>();
+        for (Period p : next) {
+            Integer i = p.startTime == null ? null : byStart.get(p.startTime);
+            if (i == null) {
+                changes.add(new Change(null, p, changedFields(EMPTY_PERIOD, p) | START_TIME));
+                continue;
+            }
+            int fields = changedFields(base.get(i), p);
+            if (fields != 0) {
+                changes.add(new Change(base.get(i), p, fields));
+            }
+        }
+        return changes;
+    }
+
+    public static byte[] encode(ForecastCache.Entry base, ForecastCache.Entry next) {
+        Out out = new Out();
+        Root b = base.root;
+        Root n = next.root;
+        String baseGeometry = b.geometry == null ? null : b.geometry.type;
+        String nextGeometry = n.geometry == null ? null : n.geometry.type;
+        int header = (Objects.equals(base.etag, next.etag) ? 0 : ETAG)
+                | (Objects.equals(base.lastModified, next.lastModified) ? 0 : LAST_MODIFIED)
+                | (Objects.equals(b.type, n.type) ? 0 : TYPE)
+                | (Objects.equals(baseGeometry, nextGeometry) ? 0 : GEOMETRY);
+        Properties bp = b.properties == null ? EMPTY_PROPERTIES : b.properties;
+        Properties np = n.properties;
+        if (np != null) {
+            header |= (Objects.equals(bp.units, np.units) ? 0 : UNITS)
+                    | (Objects.equals(bp.forecastGenerator, np.forecastGenerator) ? 0 : GENERATOR)
+                    | (Objects.equals(bp.generatedAt, np.generatedAt) ? 0 : GENERATED_AT)
+                    | (Objects.equals(bp.updateTime, np.updateTime) ? 0 : UPDATE_TIME)
+                    | (Objects.equals(bp.validTimes, np.validTimes) ? 0 : VALID_TIMES)
+                    | (sameElevation(bp.elevation, np.elevation) ? 0 : ELEVATION);
+        }
+        out.varint(header);
+        if ((header & ETAG) != 0) out.string(next.etag);
+        if ((header & LAST_MODIFIED) != 0) out.string(next.lastModified);
+        if ((header & TYPE) != 0) out.string(n.type);
+        if ((header & GEOMETRY) != 0) out.string(nextGeometry);
+        out.varint(np == null ? 0 : 1);
+        if (np == null) {
+            return out.toByteArray();
+        }
+        if ((header & UNITS) != 0) out.string(np.units);
+        if ((header & GENERATOR) != 0) out.string(np.forecastGenerator);
+        if ((header & GENERATED_AT) != 0) out.date(np.generatedAt, bp.generatedAt);
+        if ((header & UPDATE_TIME) != 0) out.date(np.updateTime, bp.updateTime);
+        if ((header & VALID_TIMES) != 0) out.string(np.validTimes);
+        if ((header & ELEVATION) != 0) {
+            out.varint(np.elevation == null ? 0 : 1);
+            if (np.elevation != null) {
+                out.string(np.elevation.unitCode);
+                out.varlong(Double.doubleToRawLongBits(np.elevation.value));
+            }
+        }
+
+        // list size + 1, 0 for no list
+        out.varint(np.periods == null ? 0 : np.periods.size() + 1);
+        if (np.periods == null) {
+            return out.toByteArray();
+        }
+        List<Period> baseline = bp.periods == null ? List.of() : bp.periods;
+        Map<Date, Integer> byStart = indexByStart(baseline);
+        for (Period p : np.periods) {
+            Integer i = p.startTime == null ? null : byStart.get(p.startTime);
+            Period from = i == null ? EMPTY_PERIOD : baseline.get(i);
+            int fields = changedFields(from, p);
+            out.varint(i == null ? 0 : i + 1);
+            out.varint(fields);
+            writePeriod(out, from, p, fields);
+        }
+        return out.toByteArray();
+    }
+
+    // rebuilds the newer entry from the older one and the bytes encode made of the pair
+    public static ForecastCache.Entry apply(ForecastCache.Entry base, ByteBuffer delta) {
+        In in = new In(delta);
+        Root b = base.root;
+        int header = in.varint();
+        String etag = (header & ETAG) != 0 ? in.string() : base.etag;
+        String lastModified = (header & LAST_MODIFIED) != 0 ? in.string() : base.lastModified;
+        Root n = new Root();
+        n.type = (header & TYPE) != 0 ? in.string() : b.type;
+        String geometry = (header & GEOMETRY) != 0 ? in.string() : (b.geometry == null ? null : b.geometry.type);
+        if (geometry != null) {
+            n.geometry = new Geometry();
+            n.geometry.type = geometry;
+        }
+        if (in.varint() == 0) {
+            return new ForecastCache.Entry(n, etag, lastModified);
+        }
+        Properties bp = b.properties == null ? EMPTY_PROPERTIES : b.properties;
+        Properties np = new Properties();
+        np.units = (header & UNITS) != 0 ? in.string() : bp.units;
+        np.forecastGenerator = (header & GENERATOR) != 0 ? in.string() : bp.forecastGenerator;
+        np.generatedAt = (header & GENERATED_AT) != 0 ? in.date(bp.generatedAt) : bp.generatedAt;
+        np.updateTime = (header & UPDATE_TIME) != 0 ? in.date(bp.updateTime) : bp.updateTime;
+        np.validTimes = (header & VALID_TIMES) != 0 ? in.string() : bp.validTimes;
+        np.elevation = bp.elevation;
+        if ((header & ELEVATION) != 0) {
+            np.elevation = null;
+            if (in.varint() != 0) {
+                np.elevation = new Elevation();
+                np.elevation.unitCode = in.string();
+                np.elevation.value = Double.longBitsToDouble(in.varlong());
+            }
+        }
+        n.properties = np;
+
+        int count = in.varint() - 1;
+        if (count >= 0) {
+            np.periods = new ArrayList<>(count);
+            for (int k = 0; k < count; k++) {
+                int i = in.varint();
+                Period from = i == 0 ? EMPTY_PERIOD : bp.periods.get(i - 1);
+                np.periods.add(readPeriod(in, from, in.varint()));
+            }
+        }
+        return new ForecastCache.Entry(n, etag, lastModified);
+    }
+
+    private static List<Period> periods(Root root) {
+        return root == null || root.properties == null || root.properties.periods == null
+                ? List.of() : root.properties.periods;
+    }
+
+    private static Map<Date, Integer> indexByStart(List<Period> periods) {
+        Map<Date, Integer> byStart = new HashMap<>();
+        for (int i = 0; i < periods.size(); i++) {
+            if (periods.get(i).startTime != null) {
+                byStart.putIfAbsent(periods.get(i).startTime, i);
+            }
+        }
+        return byStart;
+    }
+
+    private static boolean sameElevation(Elevation a, Elevation b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Objects.equals(a.unitCode, b.unitCode) && Double.compare(a.value, b.value) == 0;
+    }
+
+    static int changedFields(Period a, Period b) {
+        int fields = 0;
+        if (a.number != b.number) fields |= NUMBER;
+        if (!Objects.equals(a.name, b.name)) fields |= NAME;
+        if (!Objects.equals(a.startTime, b.startTime)) fields |= START_TIME;
+        if (!Objects.equals(a.endTime, b.endTime)) fields |= END_TIME;
+        if (a.isDaytime != b.isDaytime) fields |= DAYTIME;
+        if (a.temperature != b.temperature) fields |= TEMPERATURE;
+        if (!Objects.equals(a.temperatureUnit, b.temperatureUnit)) fields |= TEMPERATURE_UNIT;
+        if (!Objects.equals(a.temperatureTrend, b.temperatureTrend)) fields |= TEMPERATURE_TREND;
+        if (!samePrecipitation(a.probabilityOfPrecipitation, b.probabilityOfPrecipitation)) fields |= PRECIPITATION;
+        if (!Objects.equals(a.windSpeed, b.windSpeed)) fields |= WIND_SPEED;
+        if (!Objects.equals(a.windDirection, b.windDirection)) fields |= WIND_DIRECTION;
+        if (!Objects.equals(a.icon, b.icon)) fields |= ICON;
+        if (!Objects.equals(a.shortForecast, b.shortForecast)) fields |= SHORT_FORECAST;
+        if (!Objects.equals(a.detailedForecast, b.detailedForecast)) fields |= DETAILED_FORECAST;
+        return fields;
+    }
+
+    private static boolean samePrecipitation(ProbabilityOfPrecipitation a, ProbabilityOfPrecipitation b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.value == b.value && Objects.equals(a.unitCode, b.unitCode);
+    }
+
+    private static void writePeriod(Out out, Period from, Period p, int fields) {
+        if ((fields & NUMBER) != 0) out.zigzag(p.number - from.number);
+        if ((fields & NAME) != 0) out.string(p.name);
+        if ((fields & START_TIME) != 0) out.date(p.startTime, from.startTime);
+        if ((fields & END_TIME) != 0) out.date(p.endTime, from.endTime);
+        if ((fields & DAYTIME) != 0) out.varint(p.isDaytime ? 1 : 0);
+        if ((fields & TEMPERATURE) != 0) out.zigzag(p.temperature - from.temperature);
+        if ((fields & TEMPERATURE_UNIT) != 0) out.string(p.temperatureUnit);
+        if ((fields & TEMPERATURE_TREND) != 0) out.string(p.temperatureTrend);
+        if ((fields & PRECIPITATION) != 0) {
+            ProbabilityOfPrecipitation pop = p.probabilityOfPrecipitation;
+            out.varint(pop == null ? 0 : 1);
+            if (pop != null) {
+                out.string(pop.unitCode);
+                out.zigzag(pop.value - (from.probabilityOfPrecipitation == null ? 0 : from.probabilityOfPrecipitation.value));
+            }
+        }
+        if ((fields & WIND_SPEED) != 0) out.string(p.windSpeed);
+        if ((fields & WIND_DIRECTION) != 0) out.string(p.windDirection);
+        if ((fields & ICON) != 0) out.string(p.icon);
+        if ((fields & SHORT_FORECAST) != 0) out.string(p.shortForecast);
+        if ((fields & DETAILED_FORECAST) != 0) out.string(p.detailedForecast);
+    }
+
+    private static Period readPeriod(In in, Period from, int fields) {
+        Period p = new Period();
+        p.number = (fields & NUMBER) != 0 ? from.number + in.zigzag() : from.number;
+        p.name = (fields & NAME) != 0 ? in.string() : from.name;
+        p.startTime = (fields & START_TIME) != 0 ? in.date(from.startTime) : from.startTime;
+        p.endTime = (fields & END_TIME) != 0 ? in.date(from.endTime) : from.endTime;
+        p.isDaytime = (fields & DAYTIME) != 0 ? in.varint() != 0 : from.isDaytime;
+        p.temperature = (fields & TEMPERATURE) != 0 ? from.temperature + in.zigzag() : from.temperature;
+        p.temperatureUnit = (fields & TEMPERATURE_UNIT) != 0 ? in.string() : from.temperatureUnit;
+        p.temperatureTrend = (fields & TEMPERATURE_TREND) != 0 ? in.string() : from.temperatureTrend;
+        if ((fields & PRECIPITATION) != 0) {
+            if (in.varint() != 0) {
+                p.probabilityOfPrecipitation = new ProbabilityOfPrecipitation();
+                p.probabilityOfPrecipitation.unitCode = in.string();
+                p.probabilityOfPrecipitation.value = in.zigzag()
+                        + (from.probabilityOfPrecipitation == null ? 0 : from.probabilityOfPrecipitation.value);
+            }
+        } else if (from.probabilityOfPrecipitation != null) {
+            // copied so versions never share a mutable object
+            p.probabilityOfPrecipitation = new ProbabilityOfPrecipitation();
+            p.probabilityOfPrecipitation.unitCode = from.probabilityOfPrecipitation.unitCode;
+            p.probabilityOfPrecipitation.value = from.probabilityOfPrecipitation.value;
+        }
+        p.windSpeed = (fields & WIND_SPEED) != 0 ? in.string() : from.windSpeed;
+        p.windDirection = (fields & WIND_DIRECTION) != 0 ? in.string() : from.windDirection;
+        p.icon = (fields & ICON) != 0 ? in.string() : from.icon;
+        p.shortForecast = (fields & SHORT_FORECAST) != 0 ? in.string() : from.shortForecast;
+        p.detailedForecast = (fields & DETAILED_FORECAST) != 0 ? in.string() : from.detailedForecast;
+        p.derive();
+        return p;
+    }
+
+    private static class Out {
+        private byte[] buf = new byte[256];
+        private int size;
+
+        void varint(int v) {
+            varlong(v & 0xffffffffL);
+        }
+
+        void varlong(long v) {
+            while ((v & ~0x7fL) != 0) {
+                put((byte) ((v & 0x7f) | 0x80));
+                v >>>= 7;
+            }
+            put((byte) v);
+        }
+
+        void zigzag(long v) {
+            varlong((v << 1) ^ (v >> 63));
+        }
+
+        // 0 for null, otherwise the zigzag difference from base (or from 0) plus one
+        void date(Date d, Date base) {
+            if (d == null) {
+                varlong(0);
+                return;
+            }
+            long v = d.getTime() - (base == null ? 0 : base.getTime());
+            varlong(((v << 1) ^ (v >> 63)) + 1);
+        }
+
+        void string(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            varint(b.length + 1);
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, size, b.length);
+            size += b.length;
+        }
+
+        private void put(byte b) {
+            ensure(1);
+            buf[size++] = b;
+        }
+
+        private void ensure(int n) {
+            if (size + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+
+    private static class In {
+        private final ByteBuffer buf;
+
+        In(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        int varint() {
+            return (int) varlong();
+        }
+
+        long varlong() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buf.get();
+                v |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+        }
+
+        int zigzag() {
+            long v = varlong();
+            return (int) ((v >>> 1) ^ -(v & 1));
+        }
+
+        Date date(Date base) {
+            long v = varlong();
+            if (v == 0) {
+                return null;
+            }
+            v--;
+            return new Date(((v >>> 1) ^ -(v & 1)) + (base == null ? 0 : base.getTime()));
+        }
+
+        String string() {
+            int len = varint() - 1;
+            if (len < 0) {
+                return null;
+            }
+            byte[] b = new byte[len];
+            buf.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package weather;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * JFR events for the forecast pipeline, so a flight recording shows where forecast latency
+ * goes next to GC and I/O. They cost next to nothing while no recording has them enabled.
+ */
+public final class ForecastEvents {
+    private ForecastEvents() {
+    }
+
+    @Name("weather.Fetch")
+    @Label("Forecast Fetch")
+    @Description("One HTTP attempt against the forecast api, until the response headers arrive")
+    @Category({"Weather", "Forecast"})
+    @StackTrace(false)
+    public static class Fetch extends Event {
+        @Label("Grid Point")
+        public String gridPoint;
+
+        @Label("Attempt")
+        public int attempt;
+
+        @Label("Status")
+        @Description("HTTP status, -1 when no response was received")
+        public int status;
+    }
+
+    @Name("weather.Parse")
+    @Label("Forecast Parse")
+    @Description("Reading and binding one forecast response body")
+    @Category({"Weather", "Forecast"})
+    @StackTrace(false)
+    public static class Parse extends Event {
+        @Label("Grid Point")
+        public String gridPoint;
+
+        @Label("Body Size")
+        @DataAmount
+        public long bytes;
+
+        @Label("Periods")
+        public int periods;
+    }
+
+    @Name("weather.SceneBuild")
+    @Label("Scene Build")
+    @Description("Building one of the JavaFX forecast scenes")
+    @Category({"Weather", "UI"})
+    @StackTrace(false)
+    public static class SceneBuild extends Event {
+        @Label("Scene")
+        public String scene;
+    }
+}
@@ -0,0 +1,263 @@
+package weather;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/*
+ * Streaming parser for the NWS forecast json. Walks the token stream once and binds
+ * properties.periods straight into Period objects, while geometry.coordinates (a big nested
+ * list of boxed Doubles nobody reads) is skipped without being materialized.
+ * ObjectReaders are immutable and thread safe, so they are built once and shared.
+ * parseHourly goes one step further and writes each period's fields straight into an
+ * HourlySeries, so no Period is allocated at all.
+ */
+public class ForecastParser {
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .registerModule(new SimpleModule("weather").addDeserializer(Period.class, new PeriodDeserializer()));
+    static final ObjectReader ROOT_READER = MAPPER.readerFor(Root.class);
+    static final ObjectReader PERIOD_READER = MAPPER.readerFor(Period.class);
+    static final ObjectReader DATE_READER = MAPPER.readerFor(Date.class);
+    static final ObjectReader ELEVATION_READER = MAPPER.readerFor(Elevation.class);
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private ForecastParser() {
+    }
+
+    public static Root parse(InputStream in) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a json object at the start of the forecast");
+            }
+            Root r = new Root();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                if (t == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "type":
+                        r.type = p.getText();
+                        break;
+                    case "geometry":
+                        r.geometry = parseGeometry(p);
+                        break;
+                    case "properties":
+                        r.properties = parseProperties(p);
+                        break;
+                    default:
+                        p.skipChildren();
+                }
+            }
+            return r;
+        }
+    }
+
+    private static Geometry parseGeometry(JsonParser p) throws IOException {
+        Geometry g = new Geometry();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            if (field.equals("type")) {
+                g.type = p.getText();
+            } else {
+                // coordinates included, never read by anything
+                p.skipChildren();
+            }
+        }
+        return g;
+    }
+
+    private static Properties parseProperties(JsonParser p) throws IOException {
+        Properties props = new Properties();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if (t == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "units":
+                    props.units = p.getText();
+                    break;
+                case "forecastGenerator":
+                    props.forecastGenerator = p.getText();
+                    break;
+                case "generatedAt":
+                    props.generatedAt = DATE_READER.readValue(p);
+                    break;
+                case "updateTime":
+                    props.updateTime = DATE_READER.readValue(p);
+                    break;
+                case "validTimes":
+                    props.validTimes = p.getText();
+                    break;
+                case "elevation":
+                    props.elevation = ELEVATION_READER.readValue(p);
+                    break;
+                case "periods":
+                    props.periods = parsePeriods(p);
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        return props;
+    }
+
+    private static ArrayList<Period> parsePeriods(JsonParser p) throws IOException {
+        ArrayList<Period> periods = new ArrayList<>();
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return periods;
+        }
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            periods.add(PERIOD_READER.readValue(p));
+        }
+        return periods;
+    }
+
+    // streams an hourly forecast into `into`, returning it; the periods are never materialized
+    public static HourlySeries parseHourly(InputStream in, HourlySeries into) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a json object at the start of the forecast");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                p.nextToken();
+                if (field.equals("properties")) {
+                    parseHourlyProperties(p, into);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return into;
+        }
+    }
+
+    private static void parseHourlyProperties(JsonParser p, HourlySeries into) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if (field.equals("updateTime") && t == JsonToken.VALUE_STRING) {
+                into.setUpdateTime(epochSecond(p.getText()) * 1000);
+            } else if (field.equals("periods") && t == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    parseHourlyPeriod(p, into);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static void parseHourlyPeriod(JsonParser p, HourlySeries into) throws IOException {
+        long start = Long.MIN_VALUE;
+        long end = Long.MIN_VALUE;
+        boolean daytime = false;
+        int temperature = 0;
+        String temperatureUnit = null;
+        int precipitation = 0;
+        int windMin = -1;
+        int windMax = -1;
+        String windDirection = null;
+        String shortForecast = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if (t == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "startTime":
+                    start = epochSecond(p.getText());
+                    break;
+                case "endTime":
+                    end = epochSecond(p.getText());
+                    break;
+                case "isDaytime":
+                    daytime = p.getBooleanValue();
+                    break;
+                case "temperature":
+                    temperature = p.getValueAsInt();
+                    break;
+                case "temperatureUnit":
+                    temperatureUnit = p.getText();
+                    break;
+                case "probabilityOfPrecipitation":
+                    precipitation = quantityValue(p);
+                    break;
+                case "windSpeed":
+                    if (t == JsonToken.VALUE_STRING) {
+                        windMin = WindSpeed.min(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                        windMax = WindSpeed.max(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                    }
+                    break;
+                case "windDirection":
+                    int point = t == JsonToken.VALUE_STRING
+                            ? WindDirection.point(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()) : -1;
+                    windDirection = point >= 0 ? WindDirection.name(point) : p.getText();
+                    break;
+                case "shortForecast":
+                    shortForecast = p.getText();
+                    break;
+                default:
+                    // name, icon, detailedForecast, dewpoint, relativeHumidity...
+                    p.skipChildren();
+            }
+        }
+        if (start == Long.MIN_VALUE) {
+            return;
+        }
+        if (end == Long.MIN_VALUE) {
+            end = start + 3600;
+        }
+        into.put(start, end, daytime, temperature, temperatureUnit, precipitation,
+                windMin, windMax, windDirection, shortForecast);
+    }
+
+    // {"unitCode": "wmoUnit:percent", "value": 20}, value may be null
+    private static int quantityValue(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return 0;
+        }
+        int value = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if (field.equals("value") && t.isNumeric()) {
+                value = p.getValueAsInt();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    private static long epochSecond(String text) throws IOException {
+        try {
+            return OffsetDateTime.parse(text).toEpochSecond();
+        } catch (DateTimeParseException e) {
+            throw new IOException("Bad timestamp " + text, e);
+        }
+    }
+}
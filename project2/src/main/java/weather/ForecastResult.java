@@ -0,0 +1,35 @@
+package weather;
+
+import java.util.List;
+
+// outcome of fetching one gridpoint in a batch: either periods or the error that stopped it
+public class ForecastResult {
+    public final GridPoint gridPoint;
+    public final List<Period> periods;
+    public final Exception error;
+
+    private ForecastResult(GridPoint gridPoint, List<Period> periods, Exception error) {
+        this.gridPoint = gridPoint;
+        this.periods = periods;
+        this.error = error;
+    }
+
+    public static ForecastResult success(GridPoint gridPoint, List<Period> periods) {
+        return new ForecastResult(gridPoint, periods, null);
+    }
+
+    public static ForecastResult failure(GridPoint gridPoint, Exception error) {
+        return new ForecastResult(gridPoint, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess()
+                ? gridPoint + ": " + periods.size() + " periods"
+                : gridPoint + ": failed (" + error + ")";
+    }
+}
@@ -0,0 +1,203 @@
+package weather;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/*
+ * Columnar, primitive storage for a run of forecast periods. Times are epoch seconds,
+ * wind speed is parsed into min/max mph and the repeated strings are dictionary codes,
+ * so a period costs a few dozen bytes instead of a Period object graph.
+ * detailedForecast is free text and is not kept.
+ */
+public class ForecastSeries {
+    private final StringDictionary dictionary;
+    private int size;
+
+    private long[] startEpoch;
+    private long[] endEpoch;
+    private int[] number;
+    private boolean[] daytime;
+    private int[] temperature;
+    private byte[] precipitation;
+    private short[] windMin;
+    private short[] windMax;
+    private int[] name;
+    private int[] temperatureUnit;
+    private int[] windDirection;
+    private int[] icon;
+    private int[] shortForecast;
+
+    public ForecastSeries(StringDictionary dictionary) {
+        this(dictionary, 16);
+    }
+
+    public ForecastSeries(StringDictionary dictionary, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.dictionary = dictionary;
+        startEpoch = new long[capacity];
+        endEpoch = new long[capacity];
+        number = new int[capacity];
+        daytime = new boolean[capacity];
+        temperature = new int[capacity];
+        precipitation = new byte[capacity];
+        windMin = new short[capacity];
+        windMax = new short[capacity];
+        name = new int[capacity];
+        temperatureUnit = new int[capacity];
+        windDirection = new int[capacity];
+        icon = new int[capacity];
+        shortForecast = new int[capacity];
+    }
+
+    public static ForecastSeries from(List<Period> periods, StringDictionary dictionary) {
+        ForecastSeries series = new ForecastSeries(dictionary, Math.max(1, periods.size()));
+        for (Period p : periods) {
+            series.add(p);
+        }
+        return series;
+    }
+
+    public void add(Period p) {
+        if (size == startEpoch.length) {
+            // trim() can leave an empty series with no room at all
+            grow(Math.max(16, size * 2));
+        }
+        int i = size++;
+        startEpoch[i] = p.startTime == null ? 0 : p.startTime.getTime() / 1000;
+        endEpoch[i] = p.endTime == null ? 0 : p.endTime.getTime() / 1000;
+        number[i] = p.number;
+        daytime[i] = p.isDaytime;
+        temperature[i] = p.temperature;
+        precipitation[i] = (byte) (p.probabilityOfPrecipitation == null ? 0 : p.probabilityOfPrecipitation.value);
+        windMin[i] = (short) p.windMinMph;
+        windMax[i] = (short) p.windMaxMph;
+        name[i] = dictionary.intern(p.name);
+        temperatureUnit[i] = dictionary.intern(p.temperatureUnit);
+        windDirection[i] = dictionary.intern(p.windDirection);
+        icon[i] = dictionary.intern(p.icon);
+        shortForecast[i] = dictionary.intern(p.shortForecast);
+    }
+
+    // drops the spare capacity left over from growing
+    public void trim() {
+        if (size < startEpoch.length) {
+            grow(size);
+        }
+    }
+
+    private void grow(int capacity) {
+        startEpoch = Arrays.copyOf(startEpoch, capacity);
+        endEpoch = Arrays.copyOf(endEpoch, capacity);
+        number = Arrays.copyOf(number, capacity);
+        daytime = Arrays.copyOf(daytime, capacity);
+        temperature = Arrays.copyOf(temperature, capacity);
+        precipitation = Arrays.copyOf(precipitation, capacity);
+        windMin = Arrays.copyOf(windMin, capacity);
+        windMax = Arrays.copyOf(windMax, capacity);
+        name = Arrays.copyOf(name, capacity);
+        temperatureUnit = Arrays.copyOf(temperatureUnit, capacity);
+        windDirection = Arrays.copyOf(windDirection, capacity);
+        icon = Arrays.copyOf(icon, capacity);
+        shortForecast = Arrays.copyOf(shortForecast, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public StringDictionary dictionary() {
+        return dictionary;
+    }
+
+    public long startEpochSecond(int i) {
+        return startEpoch[i];
+    }
+
+    public long endEpochSecond(int i) {
+        return endEpoch[i];
+    }
+
+    public int number(int i) {
+        return number[i];
+    }
+
+    public boolean isDaytime(int i) {
+        return daytime[i];
+    }
+
+    public int temperature(int i) {
+        return temperature[i];
+    }
+
+    public int precipitation(int i) {
+        return precipitation[i];
+    }
+
+    // -1 when the period had no wind speed
+    public int windMinMph(int i) {
+        return windMin[i];
+    }
+
+    public int windMaxMph(int i) {
+        return windMax[i];
+    }
+
+    public String name(int i) {
+        return dictionary.get(name[i]);
+    }
+
+    public String temperatureUnit(int i) {
+        return dictionary.get(temperatureUnit[i]);
+    }
+
+    public String windDirection(int i) {
+        return dictionary.get(windDirection[i]);
+    }
+
+    public String icon(int i) {
+        return dictionary.get(icon[i]);
+    }
+
+    public String shortForecast(int i) {
+        return dictionary.get(shortForecast[i]);
+    }
+
+    // dictionary code, cheap to compare or group on without touching the string
+    public int shortForecastCode(int i) {
+        return shortForecast[i];
+    }
+
+    public Period toPeriod(int i) {
+        Period p = new Period();
+        p.number = number[i];
+        p.name = name(i);
+        p.startTime = new Date(startEpoch[i] * 1000);
+        p.endTime = new Date(endEpoch[i] * 1000);
+        p.isDaytime = daytime[i];
+        p.temperature = temperature[i];
+        p.temperatureUnit = temperatureUnit(i);
+        p.probabilityOfPrecipitation = new ProbabilityOfPrecipitation();
+        p.probabilityOfPrecipitation.unitCode = "wmoUnit:percent";
+        p.probabilityOfPrecipitation.value = precipitation[i];
+        if (windMin[i] >= 0) {
+            p.windSpeed = windMin[i] == windMax[i] ? windMin[i] + " mph" : windMin[i] + " to " + windMax[i] + " mph";
+        }
+        p.windDirection = windDirection(i);
+        p.icon = icon(i);
+        p.shortForecast = shortForecast(i);
+        p.derive();
+        return p;
+    }
+
+    public ArrayList<Period> toPeriods() {
+        ArrayList<Period> periods = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            periods.add(toPeriod(i));
+        }
+        return periods;
+    }
+}
@@ -0,0 +1,243 @@
+package weather;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Serves cached forecasts over plain HTTP so many consumers can share one process that does
+ * the fetching and parsing.
+ *
+ *   GET /forecast/{region}/{x},{y}[?tz=America/Chicago]
+ *
+ * answers with the periods and the daily summaries as json, and GET /metrics with
+ * Metrics.dump(). Every request runs on its own virtual thread, and the json for a forecast
+ * is rendered once and then served as the same bytes until the cache holds a newer forecast
+ * for that gridpoint.
+ *
+ * Run with -Dsun.net.httpserver.nodelay=true (ForecastService sets it): without TCP_NODELAY
+ * every keep-alive response waits out a delayed ACK (~40ms).
+ */
+public class ForecastServer implements Closeable {
+    public static final String PREFIX = "/forecast/";
+    public static final String METRICS_PATH = "/metrics";
+    private static final int MAX_RENDERED = 4096;
+    private static final ObjectWriter WRITER = ForecastParser.MAPPER.writer()
+            .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static class Rendered {
+        final Root root;
+        final ZoneId zone;
+        final byte[] bytes;
+
+        Rendered(Root root, ZoneId zone, byte[] bytes) {
+            this.root = root;
+            this.zone = zone;
+            this.bytes = bytes;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ForecastCache cache;
+    private final ConcurrentHashMap<String, Rendered> rendered = new ConcurrentHashMap<>();
+
+    private ForecastServer(HttpServer server, ExecutorService executor, ForecastCache cache) {
+        this.server = server;
+        this.executor = executor;
+        this.cache = cache;
+    }
+
+    public static ForecastServer start(InetSocketAddress address) throws IOException {
+        return start(address, WeatherAPI.getCache());
+    }
+
+    public static ForecastServer start(InetSocketAddress address, ForecastCache cache) throws IOException {
+        HttpServer server = HttpServer.create(address, 1024);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        ForecastServer fs = new ForecastServer(server, executor, cache);
+        server.createContext(PREFIX, fs::handle);
+        server.createContext(METRICS_PATH, ForecastServer::handleMetrics);
+        server.setExecutor(executor);
+        server.start();
+        return fs;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            GridPoint gp = parseGridPoint(exchange.getRequestURI().getPath());
+            if (gp == null) {
+                sendError(exchange, 400, "Expected " + PREFIX + "{region}/{x},{y}");
+                return;
+            }
+            ZoneId zone = parseZone(exchange.getRequestURI().getQuery());
+            if (zone == null) {
+                sendError(exchange, 400, "Unknown tz");
+                return;
+            }
+            Root root;
+            try {
+                root = cache.get(gp);
+            } catch (RuntimeException e) {
+                sendUpstreamError(exchange, gp, e);
+                return;
+            }
+            if (root == null || root.properties == null || root.properties.periods == null) {
+                sendError(exchange, 502, "Forecast unavailable for " + gp);
+                return;
+            }
+            send(exchange, 200, render(gp, root, zone));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // 404 from upstream stays a 404, an open circuit is a 503 the client can retry, the rest 502
+    private static void sendUpstreamError(HttpExchange exchange, GridPoint gp, RuntimeException e) throws IOException {
+        Throwable cause = e instanceof UncheckedIOException && e.getCause() != null ? e.getCause() : e;
+        System.err.println("Forecast for " + gp + " failed: " + cause);
+        Metrics.increment("server.upstreamErrors");
+        if (cause instanceof CircuitOpenException) {
+            long seconds = Math.max(1, (((CircuitOpenException) cause).retryAfterMillis + 999) / 1000);
+            exchange.getResponseHeaders().set("Retry-After", Long.toString(seconds));
+            sendError(exchange, 503, "Upstream unavailable for " + gp);
+        } else if (cause instanceof UpstreamException && ((UpstreamException) cause).status == 404) {
+            sendError(exchange, 404, "No forecast for " + gp);
+        } else {
+            sendError(exchange, 502, "Forecast unavailable for " + gp);
+        }
+    }
+
+    private static void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            byte[] bytes = Metrics.dump().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] render(GridPoint gp, Root root, ZoneId zone) throws IOException {
+        String key = gp + "@" + zone.getId();
+        Rendered r = rendered.get(key);
+        if (r != null && r.root == root) {
+            return r.bytes;
+        }
+        long start = System.nanoTime();
+        byte[] bytes = WRITER.writeValueAsBytes(body(gp, root, zone));
+        Metrics.recordNanos("render.json", System.nanoTime() - start);
+        if (rendered.size() >= MAX_RENDERED) {
+            rendered.clear();
+        }
+        rendered.put(key, new Rendered(root, zone, bytes));
+        return bytes;
+    }
+
+    static Map<String, Object> body(GridPoint gp, Root root, ZoneId zone) {
+        List<Map<String, Object>> daily = new ArrayList<>();
+        for (DailySummary d : DailySummary.summarize(root.properties.periods, zone).values()) {
+            Map<String, Object> day = new LinkedHashMap<>();
+            day.put("date", d.date.toString());
+            day.put("high", d.high);
+            day.put("low", d.low);
+            day.put("shortForecast", d.shortForecast);
+            day.put("condition", ConditionClassifier.classify(d.shortForecast).name());
+            day.put("maxPrecipitation", d.maxPrecipitation);
+            day.put("maxWindMph", d.maxWindMph);
+            day.put("windDirection", d.windDirection);
+            daily.add(day);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("gridPoint", gp.toString());
+        body.put("generatedAt", root.properties.generatedAt);
+        body.put("updateTime", root.properties.updateTime);
+        body.put("periods", root.properties.periods);
+        body.put("daily", daily);
+        return body;
+    }
+
+    // "/forecast/LOT/76,73" -> LOT/76,73
+    static GridPoint parseGridPoint(String path) {
+        if (path == null || !path.startsWith(PREFIX)) {
+            return null;
+        }
+        String rest = path.substring(PREFIX.length());
+        int slash = rest.indexOf('/');
+        int comma = rest.indexOf(',', slash + 1);
+        if (slash <= 0 || comma < 0 || rest.indexOf('/', slash + 1) >= 0) {
+            return null;
+        }
+        try {
+            return new GridPoint(rest.substring(0, slash),
+                    Integer.parseInt(rest.substring(slash + 1, comma)),
+                    Integer.parseInt(rest.substring(comma + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ZoneId parseZone(String query) {
+        if (query == null) {
+            return ZoneId.systemDefault();
+        }
+        for (String param : query.split("&")) {
+            if (param.startsWith("tz=")) {
+                try {
+                    return ZoneId.of(param.substring(3));
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        send(exchange, status, WRITER.writeValueAsString(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package weather;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+
+/*
+ * Where WeatherAPI sends its requests: api.weather.gov, a local stub, or recorded responses
+ * on disk. Everything above it (retries, circuit breaker, conditional GET, parsing, caching,
+ * metrics) runs the same whichever source is in use.
+ */
+public interface ForecastSource {
+    // requests are built against this, e.g. https://api.weather.gov
+    String baseUrl();
+
+    // transport failures (timeouts, refused connections) are IOExceptions, HTTP errors are responses
+    HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException;
+
+    static ForecastSource live(HttpClient client) {
+        return new HttpForecastSource(WeatherAPI.DEFAULT_BASE_URL, client);
+    }
+
+    // anything speaking the api.weather.gov paths: a mirror, a local stub
+    static ForecastSource http(String baseUrl, HttpClient client) {
+        return new HttpForecastSource(baseUrl, client);
+    }
+
+    /*
+     * From a command line or system property value:
+     *   live                 api.weather.gov
+     *   http://host:port     a stub or mirror
+     *   replay:<dir>         recordings in dir, see ReplayForecastSource
+     *   record:<dir>         api.weather.gov, saving every response into dir for later replay
+     */
+    static ForecastSource parse(String spec, HttpClient client) throws IOException {
+        if (spec.equals("live")) {
+            return live(client);
+        }
+        if (spec.startsWith("http://") || spec.startsWith("https://")) {
+            return http(spec, client);
+        }
+        if (spec.startsWith("replay:")) {
+            return ReplayForecastSource.open(Paths.get(spec.substring("replay:".length())));
+        }
+        if (spec.startsWith("record:")) {
+            return ReplayForecastSource.recording(live(client), Paths.get(spec.substring("record:".length())));
+        }
+        throw new IllegalArgumentException("Unknown forecast source: " + spec);
+    }
+}
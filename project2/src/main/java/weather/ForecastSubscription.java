@@ -0,0 +1,23 @@
+package weather;
+
+// handle for one listener on one gridpoint; close it to stop getting updates
+public class ForecastSubscription implements AutoCloseable {
+    private final ForecastSubscriptions owner;
+    private final GridPoint gridPoint;
+    private final ForecastSubscriptions.Listener listener;
+
+    ForecastSubscription(ForecastSubscriptions owner, GridPoint gridPoint, ForecastSubscriptions.Listener listener) {
+        this.owner = owner;
+        this.gridPoint = gridPoint;
+        this.listener = listener;
+    }
+
+    public GridPoint getGridPoint() {
+        return gridPoint;
+    }
+
+    @Override
+    public void close() {
+        owner.unsubscribe(gridPoint, listener);
+    }
+}
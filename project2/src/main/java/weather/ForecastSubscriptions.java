@@ -0,0 +1,166 @@
+package weather;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Keeps subscribed gridpoints refreshed in the background and calls listeners only when
+ * the forecast actually changed (a new Properties.updateTime).
+ *
+ * Every gridpoint has its own timer: the first refresh lands at a random point inside the
+ * first interval and each later one at interval +/- jitter, so thousands of gridpoints
+ * don't all hit upstream in the same second. Subscribers to the same gridpoint share one
+ * timer and one refresh. Refreshes go through ForecastCache.refresh, so unchanged
+ * forecasts usually come back as a cheap 304.
+ */
+public class ForecastSubscriptions implements Closeable {
+    public interface Listener {
+        void onUpdate(GridPoint gridPoint, Root root);
+    }
+
+    private class Watch {
+        final GridPoint gridPoint;
+        final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+        long lastUpdate;
+        ScheduledFuture<?> next;
+        boolean cancelled;
+
+        Watch(GridPoint gridPoint) {
+            this.gridPoint = gridPoint;
+            Root known = cache.getStale(gridPoint);
+            lastUpdate = known == null ? Long.MIN_VALUE : updateTime(known);
+        }
+    }
+
+    private final ForecastCache cache;
+    private final long intervalMillis;
+    private final double jitter;
+    private final ScheduledExecutorService timer;
+    private final ConcurrentHashMap<GridPoint, Watch> watches = new ConcurrentHashMap<>();
+
+    public ForecastSubscriptions() {
+        this(WeatherAPI.getCache(), Duration.ofMinutes(10), 0.2);
+    }
+
+    // jitter is a fraction of the interval, 0.2 means each refresh lands within +/-20%
+    public ForecastSubscriptions(ForecastCache cache, Duration interval, double jitter) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("jitter must be in [0, 1)");
+        }
+        this.cache = cache;
+        this.intervalMillis = interval.toMillis();
+        this.jitter = jitter;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "forecast-subscriptions");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public ForecastSubscription subscribe(GridPoint gridPoint, Listener listener) {
+        while (true) {
+            Watch w = watches.computeIfAbsent(gridPoint, gp -> {
+                Watch created = new Watch(gp);
+                schedule(created, (long) (ThreadLocalRandom.current().nextDouble() * intervalMillis));
+                return created;
+            });
+            synchronized (w) {
+                if (!w.cancelled) {
+                    w.listeners.add(listener);
+                    return new ForecastSubscription(this, gridPoint, listener);
+                }
+            }
+            // raced with the last subscriber leaving, try again with a fresh watch
+        }
+    }
+
+    void unsubscribe(GridPoint gridPoint, Listener listener) {
+        Watch w = watches.get(gridPoint);
+        if (w == null) {
+            return;
+        }
+        synchronized (w) {
+            w.listeners.remove(listener);
+            if (w.listeners.isEmpty() && !w.cancelled) {
+                w.cancelled = true;
+                if (w.next != null) {
+                    w.next.cancel(false);
+                }
+                watches.remove(gridPoint, w);
+            }
+        }
+    }
+
+    public int gridPointCount() {
+        return watches.size();
+    }
+
+    private void schedule(Watch w, long delayMillis) {
+        synchronized (w) {
+            if (w.cancelled || timer.isShutdown()) {
+                return;
+            }
+            // the timer thread only keeps time, the refresh itself runs on a virtual thread
+            w.next = timer.schedule(() -> Thread.ofVirtual().name("refresh-" + w.gridPoint).start(() -> refresh(w)),
+                    delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh(Watch w) {
+        try {
+            Root root = cache.refresh(w.gridPoint);
+            if (root != null) {
+                long updated = updateTime(root);
+                if (updated != w.lastUpdate) {
+                    w.lastUpdate = updated;
+                    for (Listener l : w.listeners) {
+                        try {
+                            l.onUpdate(w.gridPoint, root);
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            schedule(w, nextDelay());
+        }
+    }
+
+    long nextDelay() {
+        double spread = jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, Math.round(intervalMillis * (1 + spread)));
+    }
+
+    private static long updateTime(Root root) {
+        if (root.properties == null) {
+            return Long.MIN_VALUE;
+        }
+        Date d = root.properties.updateTime != null ? root.properties.updateTime : root.properties.generatedAt;
+        return d == null ? Long.MIN_VALUE : d.getTime();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        for (Watch w : watches.values()) {
+            synchronized (w) {
+                w.cancelled = true;
+            }
+        }
+        watches.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package weather;
+
+// an NWS forecast office + grid coordinate, e.g. LOT/76,73 for Chicago
+public record GridPoint(String region, int gridx, int gridy) {
+    public GridPoint {
+        if (region == null || region.isEmpty()) {
+            throw new IllegalArgumentException("region cannot be empty");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return region + "/" + gridx + "," + gridy;
+    }
+}
@@ -0,0 +1,323 @@
+package weather;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+/*
+ * Fixed capacity ring buffer of hourly forecast periods in primitive columns, oldest first.
+ * Memory per gridpoint is bounded by the capacity (a week of hours by default, ~40 bytes
+ * an hour) however often it is refreshed: a newer forecast overwrites the hours it already
+ * holds in place and appends the later ones, pushing the oldest hours out.
+ * Not thread safe; WeatherAPI only publishes a series once it is fully written.
+ */
+public class HourlySeries {
+    public static final int DEFAULT_CAPACITY = 168;
+    private static final long HOUR = 3600;
+
+    private final StringDictionary dictionary;
+    private final int capacity;
+    private int head;
+    private int size;
+    // epoch millis of the forecast's updateTime, 0 when unknown
+    private long updateTime;
+
+    private final long[] startEpoch;
+    private final long[] endEpoch;
+    private final boolean[] daytime;
+    private final short[] temperature;
+    private final byte[] precipitation;
+    private final short[] windMin;
+    private final short[] windMax;
+    private final int[] temperatureUnit;
+    private final int[] windDirection;
+    private final int[] shortForecast;
+
+    public HourlySeries(StringDictionary dictionary) {
+        this(dictionary, DEFAULT_CAPACITY);
+    }
+
+    public HourlySeries(StringDictionary dictionary, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.dictionary = dictionary;
+        this.capacity = capacity;
+        startEpoch = new long[capacity];
+        endEpoch = new long[capacity];
+        daytime = new boolean[capacity];
+        temperature = new short[capacity];
+        precipitation = new byte[capacity];
+        windMin = new short[capacity];
+        windMax = new short[capacity];
+        temperatureUnit = new int[capacity];
+        windDirection = new int[capacity];
+        shortForecast = new int[capacity];
+    }
+
+    public HourlySeries copy() {
+        HourlySeries c = new HourlySeries(dictionary, capacity);
+        for (int i = 0; i < size; i++) {
+            c.copyRow(this, i);
+        }
+        c.updateTime = updateTime;
+        return c;
+    }
+
+    /*
+     * An hour later than everything held is appended (dropping the oldest hour when full),
+     * an hour already held is overwritten with the newer values. Returns false for anything
+     * else (an hour older than what is held, or one that falls between held hours).
+     */
+    public boolean put(long startEpochSecond, long endEpochSecond, boolean isDaytime, int temp, String tempUnit,
+                       int precipitationPercent, int windMinMph, int windMaxMph, String direction, String forecast) {
+        int slot;
+        if (size == 0 || startEpochSecond > startEpoch[physical(size - 1)]) {
+            if (size == capacity) {
+                head = (head + 1) % capacity;
+                size--;
+            }
+            slot = physical(size++);
+        } else {
+            int i = indexOfStart(startEpochSecond);
+            if (i < 0) {
+                return false;
+            }
+            slot = physical(i);
+        }
+        startEpoch[slot] = startEpochSecond;
+        endEpoch[slot] = endEpochSecond;
+        daytime[slot] = isDaytime;
+        temperature[slot] = (short) temp;
+        precipitation[slot] = (byte) precipitationPercent;
+        windMin[slot] = (short) windMinMph;
+        windMax[slot] = (short) windMaxMph;
+        temperatureUnit[slot] = dictionary.intern(tempUnit);
+        windDirection[slot] = dictionary.intern(direction);
+        shortForecast[slot] = dictionary.intern(forecast);
+        return true;
+    }
+
+    public boolean add(Period p) {
+        long start = p.startTime == null ? 0 : p.startTime.getTime() / 1000;
+        long end = p.endTime == null ? start + HOUR : p.endTime.getTime() / 1000;
+        int precip = p.probabilityOfPrecipitation == null ? 0 : p.probabilityOfPrecipitation.value;
+        return put(start, end, p.isDaytime, p.temperature, p.temperatureUnit, precip,
+                p.windMinMph, p.windMaxMph, p.windDirection, p.shortForecast);
+    }
+
+    private void copyRow(HourlySeries from, int i) {
+        int s = from.physical(i);
+        int d = physical(size++);
+        startEpoch[d] = from.startEpoch[s];
+        endEpoch[d] = from.endEpoch[s];
+        daytime[d] = from.daytime[s];
+        temperature[d] = from.temperature[s];
+        precipitation[d] = from.precipitation[s];
+        windMin[d] = from.windMin[s];
+        windMax[d] = from.windMax[s];
+        temperatureUnit[d] = from.temperatureUnit[s];
+        windDirection[d] = from.windDirection[s];
+        shortForecast[d] = from.shortForecast[s];
+    }
+
+    // forgets hours that ended at or before epochSecond
+    public void dropBefore(long epochSecond) {
+        int keepFrom = firstEndingAfter(epochSecond);
+        head = (head + keepFrom) % capacity;
+        size -= keepFrom;
+    }
+
+    private int physical(int i) {
+        return (head + i) % capacity;
+    }
+
+    // logical index of the hour starting exactly at epochSecond, or -1
+    private int indexOfStart(long epochSecond) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long s = startEpoch[physical(mid)];
+            if (s < epochSecond) {
+                lo = mid + 1;
+            } else if (s > epochSecond) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // index of the first hour still running (or yet to come) at epochSecond; size() if none is
+    public int firstEndingAfter(long epochSecond) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (endEpoch[physical(mid)] <= epochSecond) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // a compact copy of up to n hours from the one running at epochSecond
+    public HourlySeries nextHours(long epochSecond, int n) {
+        int from = firstEndingAfter(epochSecond);
+        int count = Math.max(0, Math.min(n, size - from));
+        HourlySeries window = new HourlySeries(dictionary, Math.max(1, count));
+        for (int i = from; i < from + count; i++) {
+            window.copyRow(this, i);
+        }
+        window.updateTime = updateTime;
+        return window;
+    }
+
+    // highest chance of precipitation over hours [from, to), 0 for an empty range
+    public int maxPrecipitation(int from, int to) {
+        int max = 0;
+        for (int i = Math.max(0, from); i < Math.min(size, to); i++) {
+            max = Math.max(max, precipitation[physical(i)]);
+        }
+        return max;
+    }
+
+    public int maxTemperature(int from, int to) {
+        int max = Integer.MIN_VALUE;
+        for (int i = Math.max(0, from); i < Math.min(size, to); i++) {
+            max = Math.max(max, temperature[physical(i)]);
+        }
+        return max;
+    }
+
+    public int minTemperature(int from, int to) {
+        int min = Integer.MAX_VALUE;
+        for (int i = Math.max(0, from); i < Math.min(size, to); i++) {
+            min = Math.min(min, temperature[physical(i)]);
+        }
+        return min;
+    }
+
+    /*
+     * result[i] is the highest chance of precipitation in the `window` hours starting at hour i
+     * (fewer at the end of the series). One pass with a monotonic deque, so O(size) for any window.
+     */
+    public int[] rollingMaxPrecipitation(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        int[] result = new int[size];
+        int[] deque = new int[size];
+        int first = 0;
+        int last = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            int p = precipitation[physical(i)];
+            while (last > first && precipitation[physical(deque[last - 1])] <= p) {
+                last--;
+            }
+            deque[last++] = i;
+            while (deque[first] >= i + window) {
+                first++;
+            }
+            result[i] = precipitation[physical(deque[first])];
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public StringDictionary dictionary() {
+        return dictionary;
+    }
+
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(long epochMillis) {
+        updateTime = epochMillis;
+    }
+
+    public long startEpochSecond(int i) {
+        return startEpoch[physical(i)];
+    }
+
+    public long endEpochSecond(int i) {
+        return endEpoch[physical(i)];
+    }
+
+    public boolean isDaytime(int i) {
+        return daytime[physical(i)];
+    }
+
+    public int temperature(int i) {
+        return temperature[physical(i)];
+    }
+
+    public int precipitation(int i) {
+        return precipitation[physical(i)];
+    }
+
+    // -1 when the hour had no wind speed
+    public int windMinMph(int i) {
+        return windMin[physical(i)];
+    }
+
+    public int windMaxMph(int i) {
+        return windMax[physical(i)];
+    }
+
+    public String temperatureUnit(int i) {
+        return dictionary.get(temperatureUnit[physical(i)]);
+    }
+
+    public String windDirection(int i) {
+        return dictionary.get(windDirection[physical(i)]);
+    }
+
+    public String shortForecast(int i) {
+        return dictionary.get(shortForecast[physical(i)]);
+    }
+
+    public int shortForecastCode(int i) {
+        return shortForecast[physical(i)];
+    }
+
+    public Period toPeriod(int i) {
+        int s = physical(i);
+        Period p = new Period();
+        p.number = i + 1;
+        p.startTime = new Date(startEpoch[s] * 1000);
+        p.endTime = new Date(endEpoch[s] * 1000);
+        p.isDaytime = daytime[s];
+        p.temperature = temperature[s];
+        p.temperatureUnit = temperatureUnit(i);
+        p.probabilityOfPrecipitation = new ProbabilityOfPrecipitation();
+        p.probabilityOfPrecipitation.unitCode = "wmoUnit:percent";
+        p.probabilityOfPrecipitation.value = precipitation[s];
+        if (windMin[s] >= 0) {
+            p.windSpeed = windMin[s] == windMax[s] ? windMin[s] + " mph" : windMin[s] + " to " + windMax[s] + " mph";
+        }
+        p.windDirection = windDirection(i);
+        p.shortForecast = shortForecast(i);
+        p.derive();
+        return p;
+    }
+
+    public ArrayList<Period> toPeriods() {
+        ArrayList<Period> periods = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            periods.add(toPeriod(i));
+        }
+        return periods;
+    }
+}
@@ -0,0 +1,124 @@
+package weather;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.SSLSession;
+
+// a real HTTP upstream, api.weather.gov or anything serving the same paths
+public class HttpForecastSource implements ForecastSource {
+    private final String baseUrl;
+    private final HttpClient client;
+
+    public HttpForecastSource(String baseUrl, HttpClient client) {
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            throw new IllegalArgumentException("baseUrl cannot be empty");
+        }
+        if (client == null) {
+            throw new IllegalArgumentException("client cannot be null");
+        }
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.client = client;
+    }
+
+    public HttpClient client() {
+        return client;
+    }
+
+    @Override
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    // HttpRequest.timeout only bounds the wait for the headers, so an upstream that stalls
+    // mid-body would block the reader forever. The whole body has to arrive within the timeout
+    // instead; it is buffered, forecasts are a few hundred KB at most.
+    @Override
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<byte[]>> pending = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        Optional<Duration> timeout = request.timeout();
+        try {
+            HttpResponse<byte[]> response = timeout.isPresent()
+                    ? pending.get(timeout.get().toMillis(), TimeUnit.MILLISECONDS) : pending.get();
+            return new Buffered(response);
+        } catch (TimeoutException e) {
+            pending.cancel(true);
+            throw new HttpTimeoutException("No complete response from " + request.uri() + " within " + timeout.get());
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Request to " + request.uri() + " failed", e.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+
+    // a fully received response, its body served from memory
+    private static class Buffered implements HttpResponse<InputStream> {
+        private final HttpResponse<byte[]> response;
+
+        Buffered(HttpResponse<byte[]> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public InputStream body() {
+            return new ByteArrayInputStream(response.body());
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package weather;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Lock free log-linear histogram in the style of HdrHistogram: every power of two is split
+ * into 16 linear sub buckets, so any recorded value is reported within ~6% of what was
+ * recorded, from 0 up to Long.MAX_VALUE, in a fixed 8KB of counters.
+ * record() is a couple of atomic adds and safe from any number of threads; reads are not
+ * an atomic snapshot, which is fine for monitoring.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    public final String name;
+    // "ns" for timers, otherwise whatever is being counted (bytes, periods)
+    public final String unit;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // smallest bucket bound that at least q (0..1) of the recorded values fall under
+    public long percentile(double q) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // largest value that lands in bucket i
+    static long upperBound(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int exp = i / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = i % SUB_BUCKETS;
+        long bound = ((long) (SUB_BUCKETS + sub + 1) << (exp - SUB_BITS)) - 1;
+        return bound < 0 ? Long.MAX_VALUE : bound;
+    }
+}
@@ -0,0 +1,202 @@
+package weather;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * Process wide timers, distributions and counters for the fetch / parse / render stages.
+ * Names are dotted, e.g. fetch.http (ns until response headers), fetch.body.bytes,
+ * parse.bind (ns), parse.periods, render.scene.sevenDay (ns).
+ * Readable three ways: dump() as text, the weather:type=Metrics MBean once registerMBean()
+ * has been called, and (for timings) the JFR events in ForecastEvents.
+ */
+public class Metrics {
+    public static final String OBJECT_NAME = "weather:type=Metrics";
+
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram timer(String name) {
+        return histogram(name, "ns");
+    }
+
+    public static LatencyHistogram histogram(String name, String unit) {
+        LatencyHistogram h = histograms.get(name);
+        return h != null ? h : histograms.computeIfAbsent(name, n -> new LatencyHistogram(n, unit));
+    }
+
+    public static LongAdder counter(String name) {
+        LongAdder c = counters.get(name);
+        return c != null ? c : counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public static void recordNanos(String name, long nanos) {
+        timer(name).record(nanos);
+    }
+
+    public static void increment(String name) {
+        counter(name).increment();
+    }
+
+    public static long count(String name) {
+        LongAdder c = counters.get(name);
+        return c == null ? 0 : c.sum();
+    }
+
+    public static void reset() {
+        for (LatencyHistogram h : histograms.values()) {
+            h.reset();
+        }
+        for (LongAdder c : counters.values()) {
+            c.reset();
+        }
+    }
+
+    // one line per metric, timers in milliseconds
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (LatencyHistogram h : histograms.values()) {
+            boolean nanos = h.unit.equals("ns");
+            out.append(String.format(Locale.ROOT, "%-28s count=%d mean=%s p50=%s p90=%s p99=%s max=%s %s%n",
+                    h.name, h.getCount(),
+                    format(h.getMean(), nanos), format(h.percentile(0.5), nanos),
+                    format(h.percentile(0.9), nanos), format(h.percentile(0.99), nanos),
+                    format(h.getMax(), nanos), nanos ? "ms" : h.unit));
+        }
+        for (Map.Entry<String, LongAdder> c : counters.entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-28s %d%n", c.getKey(), c.getValue().sum()));
+        }
+        return out.toString();
+    }
+
+    private static String format(double value, boolean nanos) {
+        return nanos ? String.format(Locale.ROOT, "%.3f", value / 1e6) : String.format(Locale.ROOT, "%.0f", value);
+    }
+
+    // safe to call more than once
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Attributes are built from whatever metrics exist when asked: <name>.count/.p50/.p99/.max
+     * for each histogram (timers in ms) and <name> for each counter.
+     */
+    private static class MetricsMBean implements DynamicMBean {
+        private static final String[] STATS = {"count", "mean", "p50", "p90", "p99", "max"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongAdder c = counters.get(attribute);
+            if (c != null) {
+                return c.sum();
+            }
+            int dot = attribute.lastIndexOf('.');
+            LatencyHistogram h = dot < 0 ? null : histograms.get(attribute.substring(0, dot));
+            if (h == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            double scale = h.unit.equals("ns") ? 1e6 : 1;
+            switch (attribute.substring(dot + 1)) {
+                case "count":
+                    return (double) h.getCount();
+                case "mean":
+                    return h.getMean() / scale;
+                case "p50":
+                    return h.percentile(0.5) / scale;
+                case "p90":
+                    return h.percentile(0.9) / scale;
+                case "p99":
+                    return h.percentile(0.99) / scale;
+                case "max":
+                    return h.getMax() / scale;
+                default:
+                    throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try {
+                    list.add(new Attribute(a, getAttribute(a)));
+                } catch (AttributeNotFoundException e) {
+                    // left out, as the DynamicMBean contract allows
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            switch (actionName) {
+                case "dump":
+                    return dump();
+                case "reset":
+                    reset();
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(actionName);
+            }
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (LatencyHistogram h : histograms.values()) {
+                String unit = h.unit.equals("ns") ? "ms" : h.unit;
+                for (String stat : STATS) {
+                    attributes.add(new MBeanAttributeInfo(h.name + "." + stat, "double",
+                            stat + " of " + h.name + " (" + unit + ")", true, false, false));
+                }
+            }
+            for (String c : counters.keySet()) {
+                attributes.add(new MBeanAttributeInfo(c, "long", c, true, false, false));
+            }
+            MBeanOperationInfo[] operations = {
+                    new MBeanOperationInfo("dump", "All metrics as text", null, "java.lang.String", MBeanOperationInfo.INFO),
+                    new MBeanOperationInfo("reset", "Zero every metric", null, "void", MBeanOperationInfo.ACTION)
+            };
+            return new MBeanInfo(Metrics.class.getName(), "Forecast fetch, parse and render metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+        }
+    }
+}
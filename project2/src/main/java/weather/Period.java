@@ -2,6 +2,8 @@ package weather;
 
 import java.util.Date;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Period{
     public int number;
     public String name;
@@ -17,4 +19,22 @@ public class Period{
     public String icon;
     public String shortForecast;
     public String detailedForecast;
+
+    // numeric forms of the text above, filled in at bind time by PeriodDeserializer.
+    // Code building a Period by hand should call derive() once the text fields are set.
+    @JsonIgnore
+    public int windMinMph = -1;
+    @JsonIgnore
+    public int windMaxMph = -1;
+    @JsonIgnore
+    public double windDirectionDegrees = Double.NaN;
+    @JsonIgnore
+    public double temperatureCelsius = Double.NaN;
+
+    public void derive() {
+        windMinMph = WindSpeed.min(windSpeed);
+        windMaxMph = WindSpeed.max(windSpeed);
+        windDirectionDegrees = WindDirection.degrees(windDirection);
+        temperatureCelsius = Temperature.celsius(temperature, temperatureUnit);
+    }
 }
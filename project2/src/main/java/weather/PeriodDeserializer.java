@@ -0,0 +1,106 @@
+package weather;
+
+import java.io.IOException;
+import java.util.Date;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/*
+ * Binds a forecast period and fills in its numeric wind and temperature fields on the way:
+ * wind speed and direction are read straight off the parser's character buffer and the
+ * temperature is normalized to Celsius, so consumers never have to re-parse the text.
+ * Registered on ForecastParser.MAPPER, so every reader of a Period goes through it.
+ */
+public class PeriodDeserializer extends StdDeserializer<Period> {
+    private static final long serialVersionUID = 1L;
+
+    public PeriodDeserializer() {
+        super(Period.class);
+    }
+
+    @Override
+    public Period deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) {
+            t = p.nextToken();
+        }
+        if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT) {
+            return (Period) ctxt.handleUnexpectedToken(Period.class, p);
+        }
+        Period period = new Period();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "number":
+                    period.number = p.getValueAsInt();
+                    break;
+                case "name":
+                    period.name = p.getText();
+                    break;
+                case "startTime":
+                    period.startTime = ctxt.readValue(p, Date.class);
+                    break;
+                case "endTime":
+                    period.endTime = ctxt.readValue(p, Date.class);
+                    break;
+                case "isDaytime":
+                    period.isDaytime = p.getValueAsBoolean();
+                    break;
+                case "temperature":
+                    period.temperature = p.getValueAsInt();
+                    break;
+                case "temperatureUnit":
+                    period.temperatureUnit = value == JsonToken.VALUE_STRING
+                            ? Temperature.unit(p.getTextCharacters(), p.getTextOffset(), p.getTextLength())
+                            : p.getText();
+                    break;
+                case "temperatureTrend":
+                    period.temperatureTrend = p.getText();
+                    break;
+                case "probabilityOfPrecipitation":
+                    period.probabilityOfPrecipitation = ctxt.readValue(p, ProbabilityOfPrecipitation.class);
+                    break;
+                case "windSpeed":
+                    if (value == JsonToken.VALUE_STRING) {
+                        char[] buf = p.getTextCharacters();
+                        int offset = p.getTextOffset();
+                        int length = p.getTextLength();
+                        period.windMinMph = WindSpeed.min(buf, offset, length);
+                        period.windMaxMph = WindSpeed.max(buf, offset, length);
+                    }
+                    period.windSpeed = p.getText();
+                    break;
+                case "windDirection":
+                    if (value == JsonToken.VALUE_STRING) {
+                        int point = WindDirection.point(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                        period.windDirectionDegrees = WindDirection.degrees(point);
+                        period.windDirection = point >= 0 ? WindDirection.name(point) : p.getText();
+                    } else {
+                        period.windDirection = p.getText();
+                    }
+                    break;
+                case "icon":
+                    period.icon = p.getText();
+                    break;
+                case "shortForecast":
+                    period.shortForecast = p.getText();
+                    break;
+                case "detailedForecast":
+                    period.detailedForecast = p.getText();
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        // the unit can come before or after the value
+        period.temperatureCelsius = Temperature.celsius(period.temperature, period.temperatureUnit);
+        return period;
+    }
+}
@@ -0,0 +1,198 @@
+package weather;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * lat/lon -> NWS gridpoint, cached by 0.01 degree cell (about 1.1km, under half an NWS grid
+ * square) so every coordinate in a cell shares one /points lookup, made at the cell centre.
+ * Two points near a grid boundary can therefore get the neighbouring gridpoint, whose forecast
+ * is the same for all practical purposes.
+ *
+ * When opened on a file every newly resolved cell is appended to it as a text line
+ *   latCell lonCell region x y      (or "latCell lonCell -" for a location NWS does not cover)
+ * and the whole file is loaded back on the next open.
+ */
+public class PointIndex implements Closeable {
+    public static final double CELL_DEGREES = 0.01;
+
+    // marks cells outside NWS coverage (the /points 404), so they are not asked about again
+    private static final GridPoint NO_COVERAGE = new GridPoint("-", 0, 0);
+
+    public interface Lookup {
+        // null when the location is outside NWS coverage
+        GridPoint lookup(double lat, double lon) throws IOException;
+    }
+
+    private final Lookup lookup;
+    private final ConcurrentHashMap<Long, GridPoint> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<GridPoint>> inFlight = new ConcurrentHashMap<>();
+    private final BufferedWriter log;
+
+    // in memory only
+    public PointIndex(Lookup lookup) {
+        this(lookup, null);
+    }
+
+    private PointIndex(Lookup lookup, BufferedWriter log) {
+        this.lookup = lookup;
+        this.log = log;
+    }
+
+    public static PointIndex open(Path file, Lookup lookup) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        truncateTornLine(file);
+        PointIndex index = new PointIndex(lookup, Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                index.load(line);
+            }
+        }
+        return index;
+    }
+
+    // a crash mid-append leaves a line without its newline, drop it
+    private static void truncateTornLine(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long end = raf.length();
+            while (end > 0) {
+                raf.seek(end - 1);
+                if (raf.read() == '\n') {
+                    break;
+                }
+                end--;
+            }
+            raf.setLength(end);
+        }
+    }
+
+    private void load(String line) {
+        String[] f = line.trim().split(" ");
+        try {
+            if (f.length == 3 && f[2].equals("-")) {
+                cells.put(key(Integer.parseInt(f[0]), Integer.parseInt(f[1])), NO_COVERAGE);
+            } else if (f.length == 5) {
+                cells.put(key(Integer.parseInt(f[0]), Integer.parseInt(f[1])),
+                        new GridPoint(f[2], Integer.parseInt(f[3]), Integer.parseInt(f[4])));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Skipping bad point index line: " + line);
+        }
+    }
+
+    // the gridpoint covering lat/lon, null outside NWS coverage. Only the first caller for a
+    // cell goes to the network, concurrent callers for the same cell wait for its answer.
+    public GridPoint resolve(double lat, double lon) throws IOException {
+        if (!(lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180)) {
+            throw new IllegalArgumentException("Not a coordinate: " + lat + "," + lon);
+        }
+        int latCell = cell(lat);
+        int lonCell = cell(lon);
+        long key = key(latCell, lonCell);
+        GridPoint gp = cells.get(key);
+        if (gp != null) {
+            Metrics.increment("points.hits");
+            return gp == NO_COVERAGE ? null : gp;
+        }
+        CompletableFuture<GridPoint> mine = new CompletableFuture<>();
+        CompletableFuture<GridPoint> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                gp = running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+            return gp == NO_COVERAGE ? null : gp;
+        }
+        Metrics.increment("points.misses");
+        try {
+            gp = lookup.lookup(centre(latCell), centre(lonCell));
+            if (gp == null) {
+                gp = NO_COVERAGE;
+            }
+            cells.put(key, gp);
+            append(latCell, lonCell, gp);
+            mine.complete(gp);
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return gp == NO_COVERAGE ? null : gp;
+    }
+
+    // cached answer only, never goes to the network
+    public GridPoint getIfResolved(double lat, double lon) {
+        GridPoint gp = cells.get(key(cell(lat), cell(lon)));
+        return gp == NO_COVERAGE ? null : gp;
+    }
+
+    public boolean isResolved(double lat, double lon) {
+        return cells.containsKey(key(cell(lat), cell(lon)));
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    private void append(int latCell, int lonCell, GridPoint gp) {
+        if (log == null) {
+            return;
+        }
+        String line = gp == NO_COVERAGE
+                ? latCell + " " + lonCell + " -\n"
+                : latCell + " " + lonCell + " " + gp.region() + " " + gp.gridx() + " " + gp.gridy() + "\n";
+        synchronized (log) {
+            try {
+                log.write(line);
+                log.flush();
+            } catch (IOException e) {
+                // still cached in memory, it just gets looked up again next run
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    static double centre(int cell) {
+        return (cell + 0.5) * CELL_DEGREES;
+    }
+
+    private static long key(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            synchronized (log) {
+                log.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package weather;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import javax.net.ssl.SSLSession;
+
+/*
+ * Serves recorded response bodies from a directory instead of the network, for load tests
+ * on machines without internet access and for replaying captured production traffic.
+ * Each file holds the body of one GET and is named after its path:
+ *
+ *   /gridpoints/LOT/76,73/forecast         gridpoints_LOT_76,73_forecast.json
+ *   /gridpoints/LOT/76,73/forecast/hourly  gridpoints_LOT_76,73_forecast_hourly.json
+ *   /points/41.8781,-87.6298               points_41.8781,-87.6298.json
+ *
+ * A gridpoint without its own recording falls back to gridpoints_forecast.json (or
+ * gridpoints_forecast_hourly.json) when there is one, so a single file can answer any
+ * number of gridpoints. A request for any other path without a recording fails like a
+ * broken connection, with an IOException.
+ *
+ * Files are memory-mapped once when the source is opened and every response reads its
+ * own view of the mapping. Each recording has an ETag, and a request that sends a matching
+ * If-None-Match gets a 304. Latency, 503s and dropped connections can be injected.
+ */
+public class ReplayForecastSource implements ForecastSource {
+    // requests need an http(s) uri, .invalid never resolves to anything real
+    public static final String BASE_URL = "http://replay.invalid";
+    static final String SUFFIX = ".json";
+
+    private static class Recording {
+        final ByteBuffer body;
+        final String etag;
+
+        Recording(ByteBuffer body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+
+    private final Map<String, Recording> recordings;
+    private final LongAdder requests = new LongAdder();
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double errorRate;
+    private volatile double dropRate;
+
+    private ReplayForecastSource(Map<String, Recording> recordings) {
+        this.recordings = recordings;
+    }
+
+    public static ReplayForecastSource open(Path dir) throws IOException {
+        Map<String, Recording> recordings = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                recordings.put(name.substring(0, name.length() - SUFFIX.length()), map(file));
+            }
+        }
+        return new ReplayForecastSource(recordings);
+    }
+
+    private static Recording map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            ByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            return new Recording(body, "\"" + Long.toHexString(crc.getValue()) + "\"");
+        }
+    }
+
+    /*
+     * Passes requests through to delegate and saves every 200 body into dir under the name
+     * replay expects, replacing any earlier recording of the same path.
+     */
+    public static ForecastSource recording(ForecastSource delegate, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        return new Recorder(delegate, dir);
+    }
+
+    // every response is delayed by latency plus a random [0, jitter]
+    public void setLatency(Duration latency, Duration jitter) {
+        latencyMillis = latency.toMillis();
+        jitterMillis = jitter.toMillis();
+    }
+
+    // share of requests answered with a 503
+    public void setErrorRate(double rate) {
+        errorRate = checkRate(rate);
+    }
+
+    // share of requests failing like a reset connection, with no response at all
+    public void setDropRate(double rate) {
+        dropRate = checkRate(rate);
+    }
+
+    private static double checkRate(double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("rate must be between 0 and 1");
+        }
+        return rate;
+    }
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    // number of recordings loaded
+    public int size() {
+        return recordings.size();
+    }
+
+    @Override
+    public String baseUrl() {
+        return BASE_URL;
+    }
+
+    @Override
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+        requests.increment();
+        delay(request);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (dropRate > 0 && random.nextDouble() < dropRate) {
+            throw new IOException("Injected connection reset for " + request.uri());
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            return new Response(request, 503, headers(Map.of()), InputStream.nullInputStream());
+        }
+        String path = request.uri().getPath();
+        Recording r = recordings.get(key(path));
+        if (r == null) {
+            String generic = genericKey(path);
+            r = generic == null ? null : recordings.get(generic);
+        }
+        if (r == null) {
+            // not a 404: that would read as NWS saying the point or gridpoint does not exist
+            throw new IOException("No recording for " + path);
+        }
+        if (r.etag.equals(request.headers().firstValue("If-None-Match").orElse(null))) {
+            return new Response(request, 304, headers(Map.of("ETag", List.of(r.etag))), InputStream.nullInputStream());
+        }
+        return new Response(request, 200,
+                headers(Map.of("ETag", List.of(r.etag), "Content-Type", List.of("application/geo+json"))),
+                new BufferInputStream(r.body.duplicate()));
+    }
+
+    // sleeps the injected latency, or as much of it as the request timeout allows
+    private void delay(HttpRequest request) throws InterruptedException, HttpTimeoutException {
+        long millis = latencyMillis;
+        long jitter = jitterMillis;
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (millis <= 0) {
+            return;
+        }
+        Optional<Duration> timeout = request.timeout();
+        if (timeout.isPresent() && millis > timeout.get().toMillis()) {
+            Thread.sleep(timeout.get().toMillis());
+            throw new HttpTimeoutException("request timed out");
+        }
+        Thread.sleep(millis);
+    }
+
+    // "/gridpoints/LOT/76,73/forecast" -> "gridpoints_LOT_76,73_forecast"
+    static String key(String path) {
+        String p = path.startsWith("/") ? path.substring(1) : path;
+        return p.replace('/', '_');
+    }
+
+    // the same path with the office and x,y left out, null for anything but a gridpoint path
+    static String genericKey(String path) {
+        String[] segments = (path.startsWith("/") ? path.substring(1) : path).split("/");
+        if (segments.length < 4 || !segments[0].equals("gridpoints")) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder("gridpoints");
+        for (int i = 3; i < segments.length; i++) {
+            key.append('_').append(segments[i]);
+        }
+        return key.toString();
+    }
+
+    private static HttpHeaders headers(Map<String, List<String>> values) {
+        return HttpHeaders.of(values, (name, value) -> true);
+    }
+
+    private static class Recorder implements ForecastSource {
+        private final ForecastSource delegate;
+        private final Path dir;
+
+        Recorder(ForecastSource delegate, Path dir) {
+            this.delegate = delegate;
+            this.dir = dir;
+        }
+
+        @Override
+        public String baseUrl() {
+            return delegate.baseUrl();
+        }
+
+        @Override
+        public HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+            HttpResponse<InputStream> response = delegate.send(request);
+            if (response.statusCode() != 200) {
+                return response;
+            }
+            byte[] body;
+            try (InputStream in = response.body()) {
+                body = in.readAllBytes();
+            }
+            save(key(request.uri().getPath()), body);
+            return new Response(request, 200, response.headers(), new ByteArrayInputStream(body));
+        }
+
+        // written aside and moved into place, so replay never maps half a recording
+        private void save(String key, byte[] body) {
+            try {
+                Path tmp = Files.createTempFile(dir, key, ".tmp");
+                Files.write(tmp, body);
+                Files.move(tmp, dir.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // the caller still gets its forecast, only the recording is missing
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static class Response implements HttpResponse<InputStream> {
+        private final HttpRequest request;
+        private final int status;
+        private final HttpHeaders headers;
+        private final InputStream body;
+
+        Response(HttpRequest request, int status, HttpHeaders headers, InputStream body) {
+            this.request = request;
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return status;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return request;
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public InputStream body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package weather;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A named place on the dashboard, given either as a gridpoint or as a coordinate that is
+ * resolved through WeatherAPI.resolve the first time it is needed. One per line:
+ *
+ *   Chicago, IL;LOT;76;73
+ *   New York, NY;40.7128;-74.0060
+ *
+ * Blank lines and lines starting with # are ignored.
+ */
+public class SavedLocation {
+    public static final List<SavedLocation> DEFAULTS = List.of(
+            parse("Chicago, IL;LOT;76;73"),
+            parse("New York, NY;40.7128;-74.0060"),
+            parse("Los Angeles, CA;34.0522;-118.2437"),
+            parse("Seattle, WA;47.6062;-122.3321"),
+            parse("Denver, CO;39.7392;-104.9903"),
+            parse("Miami, FL;25.7617;-80.1918"));
+
+    public final String name;
+    public final double lat;
+    public final double lon;
+    private volatile GridPoint gridPoint;
+
+    public SavedLocation(String name, GridPoint gridPoint) {
+        this.name = name;
+        this.gridPoint = gridPoint;
+        this.lat = Double.NaN;
+        this.lon = Double.NaN;
+    }
+
+    public SavedLocation(String name, double lat, double lon) {
+        this.name = name;
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    public static SavedLocation parse(String line) {
+        String[] f = line.split(";");
+        try {
+            if (f.length == 4) {
+                return new SavedLocation(f[0].trim(), new GridPoint(f[1].trim(), Integer.parseInt(f[2].trim()), Integer.parseInt(f[3].trim())));
+            }
+            if (f.length == 3) {
+                return new SavedLocation(f[0].trim(), Double.parseDouble(f[1].trim()), Double.parseDouble(f[2].trim()));
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Expected name;region;x;y or name;lat;lon but got: " + line);
+    }
+
+    // the saved locations in file, or DEFAULTS when there is no such file
+    public static List<SavedLocation> load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return DEFAULTS;
+        }
+        List<SavedLocation> locations = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                locations.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        return locations;
+    }
+
+    // null when the coordinate is outside NWS coverage
+    public GridPoint gridPoint() throws IOException {
+        GridPoint gp = gridPoint;
+        if (gp == null) {
+            gp = WeatherAPI.resolve(lat, lon);
+            gridPoint = gp;
+        }
+        return gp;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
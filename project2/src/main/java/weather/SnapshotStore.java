@@ -0,0 +1,705 @@
+package weather;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/*
+ * On-disk history of fetched forecasts. Every snapshot is appended to snapshots.log as one
+ * binary record keyed by gridpoint and generatedAt; snapshots.idx is a small append-only
+ * list of (gridpoint, generatedAt, offset) so opening the store does not have to read the
+ * log. If the index is missing or behind the log (a crash between the two writes) it is
+ * rebuilt from the log. Reads go through a read-only memory mapping of the log. The log is
+ * locked while the store is open, so a second instance pointed at the same directory fails
+ * to open instead of interleaving its appends.
+ *
+ * Record layout: magic, payload length, payload, CRC32 of the payload. Consecutive versions
+ * of a gridpoint mostly repeat each other, so a version is stored as a ForecastDelta against
+ * the one before it (DELTA), with a deflated full record (KEYFRAME) every KEYFRAME_INTERVAL
+ * versions so rebuilding one never replays more than that many deltas. Plain full records
+ * (MAGIC) from older logs are still read.
+ */
+public class SnapshotStore implements Closeable {
+    static final int MAGIC = 0x4E575331; // "NWS1"
+    static final int KEYFRAME = 0x4E574B31; // "NWK1", int raw length + deflated full record
+    static final int DELTA = 0x4E574431; // "NWD1", gridpoint, generatedAt, base generatedAt, depth, delta
+    static final int KEYFRAME_INTERVAL = 16;
+    static final String LOG_FILE = "snapshots.log";
+    static final String INDEX_FILE = "snapshots.idx";
+
+    private final Path dir;
+    private final FileChannel log;
+    private final FileChannel index;
+    private final Map<GridPoint, TreeMap<Long, Long>> offsets = new HashMap<>();
+    // the newest version appended per gridpoint this session, the base of its next delta
+    private final Map<GridPoint, Tip> tips = new HashMap<>();
+    private MappedByteBuffer mapped;
+
+    private static class Tip {
+        final long generatedAt;
+        final int depth;
+        final ForecastCache.Entry entry;
+
+        Tip(long generatedAt, int depth, ForecastCache.Entry entry) {
+            this.generatedAt = generatedAt;
+            this.depth = depth;
+            this.entry = entry;
+        }
+    }
+
+    private SnapshotStore(Path dir, FileChannel log, FileChannel index) {
+        this.dir = dir;
+        this.log = log;
+        this.index = index;
+    }
+
+    public static SnapshotStore open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel log = FileChannel.open(dir.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // appends go at the end of the log, so two writers would interleave records
+        FileLock lock;
+        try {
+            lock = log.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // this process already has it open
+        }
+        if (lock == null) {
+            log.close();
+            index.close();
+            throw new IOException("Snapshot store " + dir + " is already open elsewhere");
+        }
+        SnapshotStore store = new SnapshotStore(dir, log, index);
+        store.load();
+        return store;
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    // appends a snapshot unless one with the same generatedAt is already stored for the gridpoint.
+    // The entry is kept as the base of the gridpoint's next delta, so it must not be changed after
+    // (cached entries never are).
+    public synchronized boolean append(GridPoint gp, ForecastCache.Entry entry) throws IOException {
+        long generatedAt = generatedAt(entry.root);
+        TreeMap<Long, Long> versions = offsets.get(gp);
+        if (versions != null && versions.containsKey(generatedAt)) {
+            return false;
+        }
+        Tip tip = tip(gp, versions);
+        int depth = tip == null ? KEYFRAME_INTERVAL : tip.depth + 1;
+        int magic;
+        byte[] payload;
+        if (depth < KEYFRAME_INTERVAL) {
+            magic = DELTA;
+            payload = encodeDelta(gp, generatedAt, tip.generatedAt, depth, ForecastDelta.encode(tip.entry, entry));
+        } else {
+            depth = 0;
+            magic = KEYFRAME;
+            payload = deflate(encode(gp, entry));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(payload.length + 16);
+        record.putInt(magic).putInt(payload.length).put(payload).putLong(crc.getValue()).flip();
+
+        long offset = log.size();
+        writeFully(log, record, offset);
+        appendIndex(gp, generatedAt, offset, payload.length + 16);
+        offsets.computeIfAbsent(gp, k -> new TreeMap<>()).put(generatedAt, offset);
+        if (tip == null || generatedAt > tip.generatedAt) {
+            tips.put(gp, new Tip(generatedAt, depth, entry));
+        }
+        return true;
+    }
+
+    // the newest stored version of gp, read back from the log only on the first append of a
+    // session; null (start a keyframe) when there is none or it cannot be read
+    private Tip tip(GridPoint gp, TreeMap<Long, Long> versions) {
+        if (versions == null || versions.isEmpty()) {
+            return null;
+        }
+        Tip tip = tips.get(gp);
+        if (tip != null && tip.generatedAt == versions.lastKey()) {
+            return tip;
+        }
+        long offset = versions.lastEntry().getValue();
+        try {
+            Decoded d = read(offset);
+            tip = d == null ? null : new Tip(versions.lastKey(), depth(offset), d.entry);
+        } catch (IOException e) {
+            System.err.println("Cannot read the newest snapshot of " + gp + ", starting a keyframe: " + e.getMessage());
+            tip = null;
+        }
+        return tip;
+    }
+
+    public boolean append(GridPoint gp, Root root) throws IOException {
+        return append(gp, new ForecastCache.Entry(root, null, null));
+    }
+
+    public synchronized ForecastCache.Entry latest(GridPoint gp) throws IOException {
+        TreeMap<Long, Long> versions = offsets.get(gp);
+        if (versions == null || versions.isEmpty()) {
+            return null;
+        }
+        return readEntry(versions.lastEntry().getValue());
+    }
+
+    public synchronized ForecastCache.Entry get(GridPoint gp, long generatedAt) throws IOException {
+        TreeMap<Long, Long> versions = offsets.get(gp);
+        Long offset = versions == null ? null : versions.get(generatedAt);
+        return offset == null ? null : readEntry(offset);
+    }
+
+    private ForecastCache.Entry readEntry(long offset) throws IOException {
+        Decoded d = read(offset);
+        if (d == null) {
+            throw new IOException("Unreadable snapshot record at offset " + offset + " in " + dir);
+        }
+        return d.entry;
+    }
+
+    // generatedAt (epoch millis) of every stored version, oldest first
+    public synchronized List<Long> versions(GridPoint gp) {
+        TreeMap<Long, Long> versions = offsets.get(gp);
+        return versions == null ? new ArrayList<>() : new ArrayList<>(versions.keySet());
+    }
+
+    // what changed between the two newest versions, empty when there are fewer than two
+    public synchronized List<ForecastDelta.Change> changes(GridPoint gp) throws IOException {
+        TreeMap<Long, Long> versions = offsets.get(gp);
+        if (versions == null || versions.size() < 2) {
+            return new ArrayList<>();
+        }
+        return changesSince(gp, versions.lowerKey(versions.lastKey()));
+    }
+
+    // what the newest version changed relative to the one generated at generatedAt
+    public synchronized List<ForecastDelta.Change> changesSince(GridPoint gp, long generatedAt) throws IOException {
+        ForecastCache.Entry before = get(gp, generatedAt);
+        ForecastCache.Entry after = latest(gp);
+        if (after == null) {
+            return new ArrayList<>();
+        }
+        return ForecastDelta.changes(before == null ? null : before.root, after.root);
+    }
+
+    public synchronized Set<GridPoint> gridPoints() {
+        return new HashSet<>(offsets.keySet());
+    }
+
+    public void flush() throws IOException {
+        log.force(false);
+        index.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        try {
+            log.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    static long generatedAt(Root root) {
+        Date d = root.properties == null ? null : root.properties.generatedAt;
+        if (d == null && root.properties != null) {
+            d = root.properties.updateTime;
+        }
+        return d == null ? 0 : d.getTime();
+    }
+
+    // ---- index ----
+
+    private void load() throws IOException {
+        long logSize = log.size();
+        long indexed = readIndex();
+        if (indexed != logSize) {
+            rebuildIndex();
+        }
+    }
+
+    // returns the end offset of the last record the index knows about
+    private long readIndex() throws IOException {
+        long size = index.size();
+        if (size == 0) {
+            return 0;
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        readFully(index, buf, 0);
+        buf.flip();
+        long end = 0;
+        while (buf.remaining() >= 4) {
+            int len = buf.getInt();
+            if (len <= 0 || len > buf.remaining()) {
+                break; // torn write at the end of the index
+            }
+            ByteBuffer entry = buf.slice(buf.position(), len);
+            buf.position(buf.position() + len);
+            GridPoint gp = new GridPoint(readString(entry), entry.getInt(), entry.getInt());
+            long generatedAt = entry.getLong();
+            long offset = entry.getLong();
+            int recordLength = entry.getInt();
+            offsets.computeIfAbsent(gp, k -> new TreeMap<>()).put(generatedAt, offset);
+            end = Math.max(end, offset + recordLength);
+        }
+        return end;
+    }
+
+    // re-indexes every readable record; a complete record that cannot be read is skipped, only an
+    // incomplete one at the very end (a torn append) is cut off
+    private void rebuildIndex() throws IOException {
+        offsets.clear();
+        tips.clear();
+        index.truncate(0);
+        long offset = 0;
+        long size = log.size();
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (offset + 8 <= size) {
+            header.clear();
+            readFully(log, header, offset);
+            header.flip();
+            int magic = header.getInt();
+            int len = header.getInt();
+            if (!isMagic(magic) || len < 0) {
+                long next = nextRecord(offset + 1, size);
+                if (next == size) {
+                    break; // nothing readable after it, treat it as a torn tail
+                }
+                System.err.println("Skipping unreadable bytes " + offset + "-" + next + " of " + dir.resolve(LOG_FILE));
+                offset = next;
+                continue;
+            }
+            if (offset + len + 16 > size) {
+                break;
+            }
+            GridPoint gp = null;
+            long generatedAt = 0;
+            try {
+                if (magic == DELTA) {
+                    // indexed from its header, it is not rebuilt until someone asks for it
+                    ByteBuffer buf = view(offset);
+                    buf.position(buf.position() + 8);
+                    if (checksumMatches(buf, len)) {
+                        DeltaHeader h = new DeltaHeader(buf.slice(buf.position(), len));
+                        TreeMap<Long, Long> versions = offsets.get(h.gridPoint);
+                        if (versions != null && versions.containsKey(h.baseGeneratedAt)) {
+                            gp = h.gridPoint;
+                            generatedAt = h.generatedAt;
+                        }
+                    }
+                } else {
+                    Decoded d = read(offset);
+                    if (d != null) {
+                        gp = d.gridPoint;
+                        generatedAt = generatedAt(d.entry.root);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                gp = null;
+            }
+            if (gp == null) {
+                // a delta whose base was skipped goes too, it cannot be rebuilt
+                System.err.println("Skipping unreadable snapshot record at offset " + offset + " of " + dir.resolve(LOG_FILE));
+            } else {
+                appendIndex(gp, generatedAt, offset, len + 16);
+                offsets.computeIfAbsent(gp, k -> new TreeMap<>()).put(generatedAt, offset);
+            }
+            offset += len + 16;
+        }
+        // anything after the last complete record is a torn append
+        if (offset < size) {
+            log.truncate(offset);
+            mapped = null;
+        }
+    }
+
+    // offset of the first complete record with a good checksum at or after from, or size if none
+    private long nextRecord(long from, long size) throws IOException {
+        for (long o = from; o + 16 <= size; o++) {
+            ByteBuffer buf = view(o);
+            if (!isMagic(buf.getInt())) {
+                continue;
+            }
+            int len = buf.getInt();
+            if (len >= 0 && o + len + 16 <= size && checksumMatches(buf, len)) {
+                return o;
+            }
+        }
+        return size;
+    }
+
+    // buf is positioned at a record's payload
+    private static boolean checksumMatches(ByteBuffer buf, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(buf.position(), len));
+        return crc.getValue() == buf.getLong(buf.position() + len);
+    }
+
+    private void appendIndex(GridPoint gp, long generatedAt, long offset, int recordLength) throws IOException {
+        byte[] region = gp.region().getBytes(StandardCharsets.UTF_8);
+        int len = 4 + region.length + 4 + 4 + 8 + 8 + 4;
+        ByteBuffer buf = ByteBuffer.allocate(4 + len);
+        buf.putInt(len).putInt(region.length).put(region).putInt(gp.gridx()).putInt(gp.gridy())
+                .putLong(generatedAt).putLong(offset).putInt(recordLength).flip();
+        writeFully(index, buf, index.size());
+    }
+
+    // ---- reading ----
+
+    private static class Decoded {
+        final GridPoint gridPoint;
+        final ForecastCache.Entry entry;
+
+        Decoded(GridPoint gridPoint, ForecastCache.Entry entry) {
+            this.gridPoint = gridPoint;
+            this.entry = entry;
+        }
+    }
+
+    private static boolean isMagic(int magic) {
+        return magic == MAGIC || magic == KEYFRAME || magic == DELTA;
+    }
+
+    private Decoded read(long offset) throws IOException {
+        ByteBuffer buf = view(offset);
+        if (buf.remaining() < 8) {
+            return null;
+        }
+        int magic = buf.getInt();
+        if (!isMagic(magic)) {
+            return null;
+        }
+        int len = buf.getInt();
+        if (len < 0 || buf.remaining() < len + 8) {
+            return null;
+        }
+        ByteBuffer payload = buf.slice(buf.position(), len);
+        buf.position(buf.position() + len);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != buf.getLong()) {
+            throw new IOException("Corrupt snapshot record at offset " + offset + " in " + dir);
+        }
+        if (magic == KEYFRAME) {
+            return decode(inflate(payload));
+        }
+        if (magic == DELTA) {
+            return applyDelta(payload);
+        }
+        return decode(payload);
+    }
+
+    // rebuilds a delta record's version from its base, which may itself be a delta
+    private Decoded applyDelta(ByteBuffer payload) throws IOException {
+        DeltaHeader h = new DeltaHeader(payload);
+        TreeMap<Long, Long> versions = offsets.get(h.gridPoint);
+        Long baseOffset = versions == null ? null : versions.get(h.baseGeneratedAt);
+        Decoded base = baseOffset == null ? null : read(baseOffset);
+        if (base == null) {
+            throw new IOException("Missing base version " + h.baseGeneratedAt + " of " + h.gridPoint + " in " + dir);
+        }
+        return new Decoded(h.gridPoint, ForecastDelta.apply(base.entry, payload));
+    }
+
+    // how many deltas have to be applied to rebuild the record at offset, 0 for a full record
+    private int depth(long offset) throws IOException {
+        ByteBuffer buf = view(offset);
+        if (buf.getInt() != DELTA) {
+            return 0;
+        }
+        int len = buf.getInt();
+        return new DeltaHeader(buf.slice(buf.position(), len)).depth;
+    }
+
+    // the fields in front of a delta record's ForecastDelta bytes, leaves the payload positioned at them
+    private static class DeltaHeader {
+        final GridPoint gridPoint;
+        final long generatedAt;
+        final long baseGeneratedAt;
+        final int depth;
+
+        DeltaHeader(ByteBuffer in) {
+            gridPoint = new GridPoint(readString(in), in.getInt(), in.getInt());
+            generatedAt = in.getLong();
+            baseGeneratedAt = in.getLong();
+            depth = in.getInt();
+        }
+    }
+
+    /*
+     * A buffer positioned at the record at offset. Reads go through a mapping of the log, which
+     * is redone only when the log has doubled since it was taken, so steady appends do not remap
+     * the file each time; a record written since is read into a heap buffer instead.
+     */
+    private ByteBuffer view(long offset) throws IOException {
+        long size = log.size();
+        if (size > Integer.MAX_VALUE) {
+            // too big for one mapping, map just this record's neighbourhood
+            ByteBuffer header = ByteBuffer.allocate(8);
+            readFully(log, header, offset);
+            int len = header.getInt(4);
+            return log.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(size - offset, (long) len + 16));
+        }
+        if (mapped == null || (offset >= mapped.capacity() && size >= 2L * mapped.capacity())) {
+            mapped = log.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (offset >= mapped.capacity()) {
+            return readTail(offset, size);
+        }
+        ByteBuffer view = mapped.duplicate();
+        view.position((int) offset);
+        return view;
+    }
+
+    private ByteBuffer readTail(long offset, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) Math.min(8, size - offset));
+        readFully(log, header, offset);
+        long len = header.capacity() < 8 || header.getInt(4) < 0 ? 0 : header.getInt(4);
+        ByteBuffer record = ByteBuffer.allocate((int) Math.min(size - offset, len + 16));
+        readFully(log, record, offset);
+        return record.flip();
+    }
+
+    // ---- codec ----
+
+    static byte[] encode(GridPoint gp, ForecastCache.Entry entry) throws IOException {
+        Root root = entry.root;
+        Properties props = root.properties;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, gp.region());
+        out.writeInt(gp.gridx());
+        out.writeInt(gp.gridy());
+        writeString(out, entry.etag);
+        writeString(out, entry.lastModified);
+        writeString(out, root.type);
+        writeString(out, root.geometry == null ? null : root.geometry.type);
+        out.writeBoolean(props != null);
+        if (props != null) {
+            writeString(out, props.units);
+            writeString(out, props.forecastGenerator);
+            writeDate(out, props.generatedAt);
+            writeDate(out, props.updateTime);
+            writeString(out, props.validTimes);
+            out.writeBoolean(props.elevation != null);
+            if (props.elevation != null) {
+                writeString(out, props.elevation.unitCode);
+                out.writeDouble(props.elevation.value);
+            }
+            int count = props.periods == null ? -1 : props.periods.size();
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                writePeriod(out, props.periods.get(i));
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeDelta(GridPoint gp, long generatedAt, long baseGeneratedAt, int depth, byte[] delta)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(delta.length + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, gp.region());
+        out.writeInt(gp.gridx());
+        out.writeInt(gp.gridy());
+        out.writeLong(generatedAt);
+        out.writeLong(baseGeneratedAt);
+        out.writeInt(depth);
+        out.write(delta);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static byte[] deflate(byte[] raw) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(raw.length / 4 + 16);
+        new DataOutputStream(bytes).writeInt(raw.length);
+        Deflater deflater = new Deflater();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(raw);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    static ByteBuffer inflate(ByteBuffer payload) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            byte[] raw = new byte[payload.getInt()];
+            inflater.setInput(payload);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int got = inflater.inflate(raw, n, raw.length - n);
+                if (got == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += got;
+            }
+            if (n != raw.length) {
+                throw new IOException("Truncated snapshot keyframe");
+            }
+            return ByteBuffer.wrap(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt snapshot keyframe", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writePeriod(DataOutputStream out, Period p) throws IOException {
+        out.writeInt(p.number);
+        writeString(out, p.name);
+        writeDate(out, p.startTime);
+        writeDate(out, p.endTime);
+        out.writeBoolean(p.isDaytime);
+        out.writeInt(p.temperature);
+        writeString(out, p.temperatureUnit);
+        writeString(out, p.temperatureTrend);
+        out.writeBoolean(p.probabilityOfPrecipitation != null);
+        if (p.probabilityOfPrecipitation != null) {
+            writeString(out, p.probabilityOfPrecipitation.unitCode);
+            out.writeInt(p.probabilityOfPrecipitation.value);
+        }
+        writeString(out, p.windSpeed);
+        writeString(out, p.windDirection);
+        writeString(out, p.icon);
+        writeString(out, p.shortForecast);
+        writeString(out, p.detailedForecast);
+    }
+
+    static Decoded decode(ByteBuffer in) {
+        GridPoint gp = new GridPoint(readString(in), in.getInt(), in.getInt());
+        String etag = readString(in);
+        String lastModified = readString(in);
+        Root root = new Root();
+        root.type = readString(in);
+        String geometryType = readString(in);
+        if (geometryType != null) {
+            root.geometry = new Geometry();
+            root.geometry.type = geometryType;
+        }
+        if (in.get() != 0) {
+            Properties props = new Properties();
+            props.units = readString(in);
+            props.forecastGenerator = readString(in);
+            props.generatedAt = readDate(in);
+            props.updateTime = readDate(in);
+            props.validTimes = readString(in);
+            if (in.get() != 0) {
+                props.elevation = new Elevation();
+                props.elevation.unitCode = readString(in);
+                props.elevation.value = in.getDouble();
+            }
+            int count = in.getInt();
+            if (count >= 0) {
+                props.periods = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    props.periods.add(readPeriod(in));
+                }
+            }
+            root.properties = props;
+        }
+        return new Decoded(gp, new ForecastCache.Entry(root, etag, lastModified));
+    }
+
+    private static Period readPeriod(ByteBuffer in) {
+        Period p = new Period();
+        p.number = in.getInt();
+        p.name = readString(in);
+        p.startTime = readDate(in);
+        p.endTime = readDate(in);
+        p.isDaytime = in.get() != 0;
+        p.temperature = in.getInt();
+        p.temperatureUnit = readString(in);
+        p.temperatureTrend = readString(in);
+        if (in.get() != 0) {
+            p.probabilityOfPrecipitation = new ProbabilityOfPrecipitation();
+            p.probabilityOfPrecipitation.unitCode = readString(in);
+            p.probabilityOfPrecipitation.value = in.getInt();
+        }
+        p.windSpeed = readString(in);
+        p.windDirection = readString(in);
+        p.icon = readString(in);
+        p.shortForecast = readString(in);
+        p.detailedForecast = readString(in);
+        p.derive();
+        return p;
+    }
+
+    // length prefixed utf-8, -1 for null
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) {
+            return null;
+        }
+        byte[] b = new byte[len];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream out, Date d) throws IOException {
+        out.writeLong(d == null ? Long.MIN_VALUE : d.getTime());
+    }
+
+    private static Date readDate(ByteBuffer in) {
+        long t = in.getLong();
+        return t == Long.MIN_VALUE ? null : new Date(t);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += ch.write(buf, position);
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of " + ch);
+            }
+            position += n;
+        }
+    }
+}
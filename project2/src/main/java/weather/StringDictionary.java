@@ -0,0 +1,44 @@
+package weather;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Interns repeated strings (shortForecast, icon, windDirection...) into small int codes.
+ * One dictionary is meant to be shared by many ForecastSeries so each distinct phrase is
+ * stored once no matter how many periods use it. Code 0 is reserved for null.
+ */
+public class StringDictionary {
+    public static final int NULL_CODE = 0;
+
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[16];
+    private int size = 1;
+
+    public synchronized int intern(String s) {
+        if (s == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(s);
+        if (code != null) {
+            return code;
+        }
+        String[] v = values;
+        if (size == v.length) {
+            v = Arrays.copyOf(v, v.length * 2);
+        }
+        v[size] = s;
+        // volatile write publishes the new element to readers of get()
+        values = v;
+        codes.put(s, size);
+        return size++;
+    }
+
+    public String get(int code) {
+        return values[code];
+    }
+
+    public synchronized int size() {
+        return size - 1;
+    }
+}
@@ -0,0 +1,47 @@
+package weather;
+
+/*
+ * One place for temperature conversion, in floating point so nothing is truncated until a
+ * caller rounds for display.
+ */
+public class Temperature {
+    private Temperature() {
+    }
+
+    public static double toCelsius(double fahrenheit) {
+        return (fahrenheit - 32) * 5 / 9;
+    }
+
+    public static double toFahrenheit(double celsius) {
+        return celsius * 9 / 5 + 32;
+    }
+
+    // nearest whole degree, for labels
+    public static int roundCelsius(double fahrenheit) {
+        return (int) Math.round(toCelsius(fahrenheit));
+    }
+
+    // NWS sends "F" or "C" (or wmoUnit:degF / wmoUnit:degC in the grid data); no unit means F
+    public static boolean isCelsius(CharSequence unit) {
+        if (unit == null || unit.length() == 0) {
+            return false;
+        }
+        char last = unit.charAt(unit.length() - 1);
+        return last == 'C' || last == 'c';
+    }
+
+    public static double celsius(double value, CharSequence unit) {
+        return isCelsius(unit) ? value : toCelsius(value);
+    }
+
+    // the unit text as a shared constant where it is one of the usual ones
+    static String unit(char[] buf, int offset, int length) {
+        if (length == 1 && buf[offset] == 'F') {
+            return "F";
+        }
+        if (length == 1 && buf[offset] == 'C') {
+            return "C";
+        }
+        return new String(buf, offset, length);
+    }
+}
@@ -0,0 +1,40 @@
+package weather;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Everything a dashboard tile shows, already formatted. Built off the UI thread; a tile is
+ * only touched when its new state is not equal to the one it is showing.
+ */
+public record TileState(String name, String temperature, String condition, String wind,
+                        String precipitation, String highLow, Condition icon) {
+
+    public static TileState of(String name, List<Period> periods, ZoneId zone) {
+        if (periods == null || periods.isEmpty()) {
+            return unavailable(name);
+        }
+        Period now = periods.get(0);
+        Map<LocalDate, DailySummary> days = DailySummary.summarize(periods, zone);
+        DailySummary today = days.isEmpty() ? null : days.values().iterator().next();
+        String highLow = today == null ? "" : "H " + today.high + "°  L " + today.low + "°";
+        int precipitation = now.probabilityOfPrecipitation == null ? 0 : now.probabilityOfPrecipitation.value;
+        return new TileState(name,
+                now.temperature + "°" + (now.temperatureUnit == null ? "" : now.temperatureUnit),
+                now.shortForecast == null ? "" : now.shortForecast,
+                (now.windSpeed == null ? "" : now.windSpeed) + (now.windDirection == null ? "" : " " + now.windDirection),
+                precipitation + "% precip",
+                highLow,
+                ConditionClassifier.classify(now.shortForecast));
+    }
+
+    public static TileState unavailable(String name) {
+        return new TileState(name, "--", "Forecast unavailable", "", "", "", Condition.OTHER);
+    }
+
+    public static TileState loading(String name) {
+        return new TileState(name, "--", "Loading...", "", "", "", Condition.OTHER);
+    }
+}
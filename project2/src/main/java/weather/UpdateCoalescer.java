@@ -0,0 +1,46 @@
+package weather;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Batches UI updates coming from background threads. Updates are keyed (one per tile), a
+ * newer update for a key replaces one that has not run yet, and however many arrive only a
+ * single task is queued on the UI executor (Platform::runLater) until it has drained them.
+ */
+public class UpdateCoalescer {
+    private final Executor uiExecutor;
+    private final ConcurrentHashMap<Object, Runnable> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public UpdateCoalescer(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor;
+    }
+
+    public void submit(Object key, Runnable update) {
+        pending.put(key, update);
+        if (scheduled.compareAndSet(false, true)) {
+            uiExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // cleared first so an update that lands while draining schedules the next batch
+        scheduled.set(false);
+        for (Map.Entry<Object, Runnable> e : pending.entrySet()) {
+            if (pending.remove(e.getKey(), e.getValue())) {
+                try {
+                    e.getValue().run();
+                } catch (RuntimeException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,21 @@
+package weather;
+
+import java.io.IOException;
+
+// a fetch from api.weather.gov (or whatever base url is set) that did not produce a forecast
+public class UpstreamException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    // http status, or -1 when no response was received
+    public final int status;
+
+    public UpstreamException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public UpstreamException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = -1;
+    }
+}
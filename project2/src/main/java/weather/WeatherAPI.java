@@ -1,48 +1,719 @@
 package weather;
 
+import java.io.IOException;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper; // version 2.11.1
+import com.fasterxml.jackson.databind.JsonNode;
 
 
 public class WeatherAPI {
-    public static ArrayList<Period> getForecast(String region, int gridx, int gridy) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://api.weather.gov/gridpoints/"+region+"/"+String.valueOf(gridx)+","+String.valueOf(gridy)+"/forecast"))
-                //.method("GET", HttpRequest.BodyPublishers.noBody())
+    public static final String DEFAULT_BASE_URL = "https://api.weather.gov";
+    // how many batch requests may be in flight against upstream at once
+    public static final int DEFAULT_MAX_CONCURRENT = 32;
+
+    private static volatile FetchPolicy policy = FetchPolicy.DEFAULT;
+
+    // one long lived client so every fetch shares the same connection pool (and HTTP/2 keep-alive)
+    private static volatile HttpClient client = newDefaultClient(policy);
+
+    // where requests go: api.weather.gov unless setBaseUrl/setForecastSource say otherwise
+    private static volatile ForecastSource source = ForecastSource.live(client);
+
+    // one circuit breaker per upstream base url
+    private static final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private static final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // parsed forecasts, reused until NWS is expected to have published a newer one
+    private static final ForecastCache cache = new ForecastCache(1024, WeatherAPI::fetch);
+
+    // when set, every freshly downloaded forecast is also appended here
+    private static volatile SnapshotStore snapshots;
+
+    // hourly forecasts, kept as bounded ring buffers rather than Period lists
+    private static final int MAX_HOURLY = 4096;
+    private static final StringDictionary hourlyDictionary = new StringDictionary();
+    private static final Map<GridPoint, HourlySlot> hourly = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GridPoint, HourlySlot> eldest) {
+            return size() > MAX_HOURLY;
+        }
+    };
+
+    // one hourly refresh per gridpoint at a time, like ForecastCache's loads
+    private static final ConcurrentHashMap<GridPoint, CompletableFuture<HourlySeries>> hourlyInFlight =
+            new ConcurrentHashMap<>();
+
+    private static class HourlySlot {
+        final HourlySeries series;
+        final long expiresAt;
+
+        HourlySlot(HourlySeries series, long expiresAt) {
+            this.series = series;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // lat/lon -> gridpoint answers from /points, in memory until usePointIndex is called
+    private static volatile PointIndex points = new PointIndex(WeatherAPI::lookupPoint);
+
+    private static HttpClient newDefaultClient(FetchPolicy policy) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(policy.connectTimeout)
                 .build();
-        HttpResponse<String> response = null;
+    }
+
+    public static FetchPolicy getFetchPolicy() {
+        return policy;
+    }
+
+    // replaces the http client with one using the new connect timeout and resets the circuit breakers
+    public static void setFetchPolicy(FetchPolicy fetchPolicy) {
+        if (fetchPolicy == null) {
+            throw new IllegalArgumentException("fetchPolicy cannot be null");
+        }
+        policy = fetchPolicy;
+        client = newDefaultClient(fetchPolicy);
+        rebindHttpSource();
+        breakers.clear();
+    }
+
+    public static CircuitBreaker getCircuitBreaker() {
+        String upstream = source.baseUrl();
+        return breakers.computeIfAbsent(upstream,
+                u -> new CircuitBreaker(u, policy.failureThreshold, policy.openDuration));
+    }
+
+    public static HttpClient getHttpClient() {
+        return client;
+    }
+
+    // lets callers swap in their own configured client (proxy, executor, timeouts...)
+    public static void setHttpClient(HttpClient httpClient) {
+        if (httpClient == null) {
+            throw new IllegalArgumentException("httpClient cannot be null");
+        }
+        client = httpClient;
+        rebindHttpSource();
+    }
+
+    // an http source follows client changes, any other source is left alone
+    private static void rebindHttpSource() {
+        ForecastSource current = source;
+        if (current instanceof HttpForecastSource) {
+            source = new HttpForecastSource(current.baseUrl(), client);
+        }
+    }
+
+    public static String getBaseUrl() {
+        return source.baseUrl();
+    }
+
+    // point the api somewhere other than api.weather.gov (a mirror, a local stub...)
+    public static void setBaseUrl(String url) {
+        if (url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("url cannot be empty");
+        }
+        source = new HttpForecastSource(url, client);
+    }
+
+    public static ForecastSource getForecastSource() {
+        return source;
+    }
+
+    // e.g. a ReplayForecastSource, to run everything against recorded responses
+    public static void setForecastSource(ForecastSource forecastSource) {
+        if (forecastSource == null) {
+            throw new IllegalArgumentException("forecastSource cannot be null");
+        }
+        source = forecastSource;
+    }
+
+    public static ForecastCache getCache() {
+        return cache;
+    }
+
+    public static SnapshotStore getSnapshotStore() {
+        return snapshots;
+    }
+
+    public static void setSnapshotStore(SnapshotStore store) {
+        snapshots = store;
+    }
+
+    // opens (or creates) a snapshot store, records into it from now on and warms the cache from it
+    public static SnapshotStore useSnapshotStore(Path dir) throws IOException {
+        SnapshotStore store = SnapshotStore.open(dir);
         try {
-            response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            warmCache(store);
+        } catch (RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        snapshots = store;
+        return store;
+    }
+
+    // loads the newest stored snapshot of every gridpoint into the cache, validators included and
+    // marked expired, so the first get after a restart is a cheap conditional GET instead of a full
+    // download, and an old snapshot is never shown as current (it is still served if upstream is down).
+    // A gridpoint whose snapshot cannot be read is skipped, it is simply fetched as usual.
+    public static int warmCache(SnapshotStore store) {
+        int warmed = 0;
+        for (GridPoint gp : store.gridPoints()) {
+            ForecastCache.Entry e;
+            try {
+                e = store.latest(gp);
+            } catch (IOException ex) {
+                System.err.println("Not warming " + gp + ": " + ex.getMessage());
+                Metrics.increment("snapshots.failures");
+                continue;
+            }
+            if (e != null && e.root.properties != null && e.root.properties.periods != null) {
+                cache.putStale(gp, e);
+                warmed++;
+            }
+        }
+        return warmed;
+    }
+
+    // queries across every forecast currently cached, see ForecastAnalytics
+    public static ForecastAnalytics analytics() {
+        return ForecastAnalytics.fromCache(cache);
+    }
+
+    public static PointIndex getPointIndex() {
+        return points;
+    }
+
+    public static void setPointIndex(PointIndex index) {
+        points = index == null ? new PointIndex(WeatherAPI::lookupPoint) : index;
+    }
+
+    // opens (or creates) a persisted point index and resolves through it from now on
+    public static PointIndex usePointIndex(Path file) throws IOException {
+        PointIndex index = PointIndex.open(file, WeatherAPI::lookupPoint);
+        points = index;
+        return index;
+    }
+
+    // the NWS gridpoint whose forecast covers lat/lon, or null outside NWS coverage.
+    // Nearby coordinates share one cached /points lookup, see PointIndex.
+    public static GridPoint resolve(double lat, double lon) throws IOException {
+        return points.resolve(lat, lon);
+    }
+
+    static GridPoint lookupPoint(double lat, double lon) throws IOException {
+        // NWS redirects coordinates with more than 4 decimals to the rounded ones
+        String point = String.format(Locale.ROOT, "%.4f,%.4f", lat, lon);
+        long start = System.nanoTime();
+        JsonNode properties;
+        try {
+            properties = sendWithRetry("point " + point, () -> HttpRequest.newBuilder()
+                    .uri(URI.create(source.baseUrl() + "/points/" + point))
+                    .timeout(policy.requestTimeout)
+                    .build(), response -> {
+                        try (InputStream in = response.body()) {
+                            return ForecastParser.MAPPER.readTree(in).path("properties");
+                        }
+                    });
+        } catch (UpstreamException e) {
+            if (e.status == 404) {
+                return null; // outside NWS coverage
+            }
+            throw e;
+        } finally {
+            Metrics.recordNanos("points.http", System.nanoTime() - start);
+        }
+        String region = properties.path("gridId").asText(null);
+        if (region == null || !properties.path("gridX").isInt() || !properties.path("gridY").isInt()) {
+            throw new UpstreamException("No gridpoint in /points response for " + point, 200);
+        }
+        return new GridPoint(region, properties.get("gridX").asInt(), properties.get("gridY").asInt());
+    }
+
+    static HttpRequest forecastRequest(GridPoint gp, ForecastCache.Entry previous) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(source.baseUrl()+"/gridpoints/"+gp.region()+"/"+String.valueOf(gp.gridx())+","+String.valueOf(gp.gridy())+"/forecast"))
+                .timeout(policy.requestTimeout);
+        // conditional GET, so an unchanged forecast comes back as an empty 304
+        if (previous != null) {
+            if (previous.etag != null) {
+                builder.header("If-None-Match", previous.etag);
+            }
+            if (previous.lastModified != null) {
+                builder.header("If-Modified-Since", previous.lastModified);
+            }
+        }
+        return builder.build();
+    }
+
+    public static Map<GridPoint, ForecastResult> getForecasts(Collection<GridPoint> gridPoints) {
+        return getForecasts(gridPoints, DEFAULT_MAX_CONCURRENT);
+    }
+
+    // fetches every gridpoint on its own virtual thread, at most maxConcurrent at a time.
+    // A failing gridpoint only fails its own ForecastResult.
+    public static Map<GridPoint, ForecastResult> getForecasts(Collection<GridPoint> gridPoints, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        Semaphore permits = new Semaphore(maxConcurrent);
+        Map<GridPoint, Future<ForecastResult>> pending = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (GridPoint gp : gridPoints) {
+                if (!pending.containsKey(gp)) {
+                    pending.put(gp, executor.submit(() -> fetchForBatch(gp, permits)));
+                }
+            }
+        } // close() waits for every task
+        Map<GridPoint, ForecastResult> results = new LinkedHashMap<>();
+        for (Map.Entry<GridPoint, Future<ForecastResult>> e : pending.entrySet()) {
+            results.put(e.getKey(), e.getValue().resultNow());
+        }
+        return results;
+    }
+
+    private static ForecastResult fetchForBatch(GridPoint gp, Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ForecastResult.failure(gp, e);
+        }
+        try {
+            Root r = cache.get(gp);
+            if (r == null || r.properties == null || r.properties.periods == null) {
+                return ForecastResult.failure(gp, new IllegalStateException("Failed to load forecast for " + gp));
+            }
+            return ForecastResult.success(gp, r.properties.periods);
+        } catch (UncheckedIOException e) {
+            return ForecastResult.failure(gp, e.getCause());
         } catch (Exception e) {
-            e.printStackTrace();
+            return ForecastResult.failure(gp, e);
+        } finally {
+            permits.release();
         }
-        Root r = getObject(response.body());
-        if(r == null){
-            System.err.println("Failed to parse JSon");
+    }
+
+    public static Root refresh(String region, int gridx, int gridy) {
+        return cache.refresh(new GridPoint(region, gridx, gridy));
+    }
+
+    // null when the forecast could not be loaded and nothing was cached to fall back on
+    public static ArrayList<Period> getForecast(String region, int gridx, int gridy) {
+        GridPoint gp = new GridPoint(region, gridx, gridy);
+        Root r;
+        try {
+            r = cache.get(gp);
+        } catch (UncheckedIOException e) {
+            System.err.println("Failed to load forecast for " + gp + ": " + e.getCause().getMessage());
+            return null;
+        }
+        if(r == null || r.properties == null){
             return null;
         }
         return r.properties.periods;
     }
+
+    /*
+     * The next week of hours for a gridpoint, or null when it could not be loaded. A refresh
+     * writes into a copy of the previous series (newer values over the hours it already had,
+     * later hours appended), so a series handed out here is never modified afterwards.
+     */
+    public static HourlySeries getHourlyForecast(String region, int gridx, int gridy) {
+        GridPoint gp = new GridPoint(region, gridx, gridy);
+        HourlySlot slot = hourlySlot(gp);
+        if (slot != null && System.currentTimeMillis() < slot.expiresAt) {
+            return slot.series;
+        }
+        CompletableFuture<HourlySeries> mine = new CompletableFuture<>();
+        CompletableFuture<HourlySeries> running = hourlyInFlight.putIfAbsent(gp, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            // someone may have finished refreshing between our look and registering the flight
+            slot = hourlySlot(gp);
+            HourlySeries series = slot != null && System.currentTimeMillis() < slot.expiresAt
+                    ? slot.series : loadHourly(gp, slot);
+            mine.complete(series);
+            return series;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            hourlyInFlight.remove(gp, mine);
+        }
+    }
+
+    private static HourlySlot hourlySlot(GridPoint gp) {
+        synchronized (hourly) {
+            return hourly.get(gp);
+        }
+    }
+
+    private static HourlySeries loadHourly(GridPoint gp, HourlySlot slot) {
+        HourlySeries previous = slot == null ? null : slot.series;
+        HourlySeries series;
+        try {
+            series = sendWithRetry(gp.toString(), () -> hourlyRequest(gp), response -> readHourly(response, previous));
+        } catch (IOException e) {
+            System.err.println("Failed to load hourly forecast for " + gp + ": " + e.getMessage());
+            return previous;
+        }
+        long now = System.currentTimeMillis();
+        long base = series.getUpdateTime() == 0 ? now : Math.min(series.getUpdateTime(), now);
+        long expiresAt = Math.max(base + ForecastCache.DEFAULT_UPDATE_INTERVAL.toMillis(), now + ForecastCache.MIN_TTL.toMillis());
+        synchronized (hourly) {
+            hourly.put(gp, new HourlySlot(series, expiresAt));
+        }
+        return series;
+    }
+
+    static HttpRequest hourlyRequest(GridPoint gp) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(source.baseUrl()+"/gridpoints/"+gp.region()+"/"+gp.gridx()+","+gp.gridy()+"/forecast/hourly"))
+                .timeout(policy.requestTimeout)
+                .build();
+    }
+
+    // a body that does not parse is counted and handed back to sendWithRetry as a failed attempt
+    private static HourlySeries readHourly(HttpResponse<InputStream> response, HourlySeries previous) throws IOException {
+        HourlySeries series = previous == null ? new HourlySeries(hourlyDictionary) : previous.copy();
+        long start = System.nanoTime();
+        try (InputStream in = response.body()) {
+            ForecastParser.parseHourly(in, series);
+        } catch (IOException e) {
+            Metrics.increment("parse.failures");
+            throw e;
+        }
+        Metrics.recordNanos("parse.hourly", System.nanoTime() - start);
+        return series;
+    }
+
+    // cache loader: goes to the network (retrying per the fetch policy); on a 304 hands back
+    // previous without reading or parsing a body, and if upstream is failing falls back to
+    // previous as well so callers keep getting the last good forecast
+    static ForecastCache.Entry fetch(GridPoint gp, ForecastCache.Entry previous) {
+        try {
+            ForecastCache.Entry e = fetchWithRetry(gp, previous);
+            record(gp, e, previous);
+            return e;
+        } catch (IOException e) {
+            if (previous != null) {
+                System.err.println("Serving stale forecast for " + gp + ": " + e.getMessage());
+                Metrics.increment("fetch.stale");
+                return previous;
+            }
+            Metrics.increment("fetch.failures");
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static ForecastCache.Entry fetchWithRetry(GridPoint gp, ForecastCache.Entry previous) throws IOException {
+        return sendWithRetry(gp.toString(), () -> forecastRequest(gp, previous), response -> toEntry(gp, response, previous));
+    }
+
+    // reads a 2xx/304 response; null means the body could not be used
+    private interface ResponseReader<T> {
+        T read(HttpResponse<InputStream> response) throws IOException;
+    }
+
+    // sends until a usable response, retrying per the fetch policy and guarded by the circuit breaker;
+    // target names what is being fetched (a gridpoint, a point) in errors and events
+    private static <T> T sendWithRetry(String target, Supplier<HttpRequest> request, ResponseReader<T> reader) throws IOException {
+        FetchPolicy p = policy;
+        CircuitBreaker breaker = getCircuitBreaker();
+        IOException last = null;
+        for (int attempt = 1; attempt <= p.maxAttempts; attempt++) {
+            if (attempt > 1) {
+                Metrics.increment("fetch.retries");
+                sleep(retryDelay(last, p, attempt - 1));
+            }
+            if (!breaker.allowRequest()) {
+                Metrics.increment("fetch.circuitOpen");
+                throw new CircuitOpenException("Circuit open for " + breaker.getName(), breaker.retryAfterMillis(), last);
+            }
+            // the client does not report dns/connect separately, they are part of this wait
+            ForecastEvents.Fetch event = new ForecastEvents.Fetch();
+            event.begin();
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response;
+            try {
+                response = source.send(request.get());
+            } catch (InterruptedException e) {
+                breaker.release();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted fetching " + target);
+            } catch (RuntimeException e) {
+                breaker.release();
+                throw e;
+            } catch (IOException e) {
+                // timeouts and connection failures
+                Metrics.recordNanos("fetch.http", System.nanoTime() - start);
+                commit(event, target, attempt, -1);
+                breaker.recordFailure();
+                last = new UpstreamException("Request for " + target + " failed: " + e, e);
+                continue;
+            }
+            Metrics.recordNanos("fetch.http", System.nanoTime() - start);
+            int status = response.statusCode();
+            commit(event, target, attempt, status);
+            if (status == 304 || (status >= 200 && status < 300)) {
+                // a body that is cut off or will not parse counts as a failed attempt too
+                T result;
+                try {
+                    result = reader.read(response);
+                } catch (IOException e) {
+                    breaker.recordFailure();
+                    last = new UpstreamException("Reading response for " + target + " failed: " + e, e);
+                    continue;
+                } catch (RuntimeException e) {
+                    breaker.release();
+                    throw e;
+                }
+                if (result == null) {
+                    breaker.recordFailure();
+                    last = new UpstreamException("Failed to parse response for " + target, status);
+                    continue;
+                }
+                breaker.recordSuccess();
+                return result;
+            }
+            discard(response);
+            if (!FetchPolicy.isRetryable(status)) {
+                // upstream is healthy, it just does not like this request
+                breaker.recordSuccess();
+                throw new UpstreamException("HTTP " + status + " for " + target, status);
+            }
+            breaker.recordFailure();
+            last = new RetryableStatus("HTTP " + status + " for " + target, status,
+                    response.headers().firstValue("Retry-After").orElse(null));
+        }
+        throw last;
+    }
+
+    private static void commit(ForecastEvents.Fetch event, String target, int attempt, int status) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.gridPoint = target;
+            event.attempt = attempt;
+            event.status = status;
+            event.commit();
+        }
+    }
+
+    // a 429/5xx response, remembering any Retry-After the server sent
+    private static class RetryableStatus extends UpstreamException {
+        private static final long serialVersionUID = 1L;
+        final String retryAfter;
+
+        RetryableStatus(String message, int status, String retryAfter) {
+            super(message, status);
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    private static long retryDelay(IOException last, FetchPolicy p, int retry) {
+        long backoff = p.backoffMillis(retry);
+        if (last instanceof RetryableStatus && ((RetryableStatus) last).retryAfter != null) {
+            try {
+                long seconds = Long.parseLong(((RetryableStatus) last).retryAfter.trim());
+                return Math.min(p.maxBackoff.toMillis(), Math.max(backoff, seconds * 1000));
+            } catch (NumberFormatException e) {
+                // an http date, fall back to our own backoff
+            }
+        }
+        return backoff;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off");
+        }
+    }
+
+    private static void discard(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            // we are throwing it away anyway
+        }
+    }
+
+    private static void record(GridPoint gp, ForecastCache.Entry e, ForecastCache.Entry previous) {
+        SnapshotStore store = snapshots;
+        if (store == null || e == null || e == previous) {
+            return;
+        }
+        try {
+            store.append(gp, e);
+        } catch (IOException ex) {
+            // the forecast itself is fine, only its history is missing a version
+            Metrics.increment("snapshots.failures");
+        }
+    }
+
+    private static ForecastCache.Entry toEntry(GridPoint gp, HttpResponse<InputStream> response, ForecastCache.Entry previous)
+            throws IOException {
+        if (response.statusCode() == 304 && previous != null) {
+            discard(response);
+            Metrics.increment("fetch.notModified");
+            return previous;
+        }
+        ForecastEvents.Parse event = new ForecastEvents.Parse();
+        event.begin();
+        CountingInputStream body = new CountingInputStream(response.body());
+        long start = System.nanoTime();
+        Root r;
+        try {
+            r = ForecastParser.parse(body);
+        } catch (IOException e) {
+            recordParse(start, null);
+            throw e;
+        }
+        recordParse(start, r);
+        Metrics.histogram("fetch.body.bytes", "bytes").record(body.count);
+        event.end();
+        if (event.shouldCommit()) {
+            event.gridPoint = gp.toString();
+            event.bytes = body.count;
+            event.periods = periodCount(r);
+            event.commit();
+        }
+        if (r == null) {
+            return null;
+        }
+        return new ForecastCache.Entry(r,
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null));
+    }
+
+    public static CompletableFuture<List<Period>> getForecastAsync(String region, int gridx, int gridy) {
+        GridPoint gp = new GridPoint(region, gridx, gridy);
+        Root cached = cache.getIfFresh(gp);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.properties.periods);
+        }
+        // the blocking path (retries, breaker, single flight) on a virtual thread
+        return CompletableFuture.supplyAsync(() -> {
+            Root r = cache.get(gp);
+            if (r == null || r.properties == null) {
+                throw new IllegalStateException("Failed to load forecast for " + gp);
+            }
+            return r.properties.periods;
+        }, asyncExecutor);
+    }
+
+    // null when json does not parse, counted as parse.failures
     public static Root getObject(String json){
-        ObjectMapper om = new ObjectMapper();
         Root toRet = null;
+        long start = System.nanoTime();
         try {
-            toRet = om.readValue(json, Root.class);
-            ArrayList<Period> p = toRet.properties.periods;
-
+            toRet = ForecastParser.ROOT_READER.readValue(json);
         } catch (JsonProcessingException e) {
-            e.printStackTrace();
+            // reported through the metric below
         }
+        recordParse(start, toRet);
         return toRet;
 
     }
-}
 
+    // streams the body straight into Period objects without buffering it as a String
+    public static Root getObject(InputStream json){
+        Root toRet = null;
+        long start = System.nanoTime();
+        try {
+            toRet = ForecastParser.parse(json);
+        } catch (IOException e) {
+            // reported through the metric below
+        }
+        recordParse(start, toRet);
+        return toRet;
+    }
+
+    private static void recordParse(long start, Root r) {
+        Metrics.recordNanos("parse.bind", System.nanoTime() - start);
+        if (r != null) {
+            Metrics.histogram("parse.periods", "periods").record(periodCount(r));
+        } else {
+            Metrics.increment("parse.failures");
+        }
+    }
+
+    private static int periodCount(Root r) {
+        return r == null || r.properties == null || r.properties.periods == null ? 0 : r.properties.periods.size();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
 
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
 
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package weather;
+
+/*
+ * The 16 point compass NWS uses for windDirection ("N", "NNE", ... "NNW") as degrees.
+ * Matching returns the shared constant for the name, so binding a direction allocates nothing.
+ */
+public class WindDirection {
+    private static final String[] POINTS = {
+            "N", "NNE", "NE", "ENE", "E", "ESE", "SE", "SSE",
+            "S", "SSW", "SW", "WSW", "W", "WNW", "NW", "NNW"};
+
+    private WindDirection() {
+    }
+
+    // index into the compass (0 = N, 4 = E ...), or -1 for anything else
+    public static int point(char[] buf, int offset, int length) {
+        for (int p = 0; p < POINTS.length; p++) {
+            String name = POINTS[p];
+            if (name.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && buf[offset + i] == name.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    public static int point(String s) {
+        for (int p = 0; p < POINTS.length; p++) {
+            if (POINTS[p].equals(s)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    public static String name(int point) {
+        return POINTS[point];
+    }
+
+    // NaN when the text is not a compass point (e.g. missing or variable wind)
+    public static double degrees(int point) {
+        return point < 0 ? Double.NaN : point * 22.5;
+    }
+
+    public static double degrees(String s) {
+        return degrees(point(s));
+    }
+}
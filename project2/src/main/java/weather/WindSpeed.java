@@ -0,0 +1,80 @@
+package weather;
+
+/*
+ * Reads NWS wind speed text such as "10 mph" or "10 to 15 mph" without regex or split.
+ * Missing numbers come back as -1.
+ */
+public class WindSpeed {
+    private WindSpeed() {
+    }
+
+    public static int min(String s) {
+        return number(s, 0);
+    }
+
+    // the upper end of a range, or the single value when there is no range
+    public static int max(String s) {
+        int second = number(s, 1);
+        return second >= 0 ? second : number(s, 0);
+    }
+
+    // the index-th run of digits in s, or -1
+    static int number(CharSequence s, int index) {
+        if (s == null) {
+            return -1;
+        }
+        int seen = 0;
+        int n = s.length();
+        int i = 0;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int value = 0;
+                while (i < n && (c = s.charAt(i)) >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    i++;
+                }
+                if (seen == index) {
+                    return value;
+                }
+                seen++;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    // the same, straight off a parser's character buffer so no String is made
+    public static int min(char[] buf, int offset, int length) {
+        return number(buf, offset, length, 0);
+    }
+
+    public static int max(char[] buf, int offset, int length) {
+        int second = number(buf, offset, length, 1);
+        return second >= 0 ? second : number(buf, offset, length, 0);
+    }
+
+    static int number(char[] buf, int offset, int length, int index) {
+        int seen = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            char c = buf[i];
+            if (c >= '0' && c <= '9') {
+                int value = 0;
+                while (i < end && (c = buf[i]) >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    i++;
+                }
+                if (seen == index) {
+                    return value;
+                }
+                seen++;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,113 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class AdvisoryTableTest {
+
+    @Test
+    void parsesRules() {
+        AdvisoryRule scarf = AdvisoryRule.parse("scarf;Wear a Scarf?;temperature <= 35 & wind >= 15 & temperature > 10");
+        assertEquals("scarf", scarf.name);
+        assertEquals("Wear a Scarf?", scarf.question);
+        assertEquals(11, scarf.minTemperature);
+        assertEquals(35, scarf.maxTemperature);
+        assertEquals(15, scarf.minWind);
+        assertTrue(scarf.matches(30, 0, 20, 0));
+        assertFalse(scarf.matches(30, 0, -1, 0));
+        assertFalse(scarf.matches(36, 0, 20, 0));
+
+        AdvisoryRule umbrella = AdvisoryRule.parse("umbrella;Carry an Umbrella?;forecast has rain|snow");
+        assertEquals(ConditionClassifier.RAIN | ConditionClassifier.SNOW, umbrella.keywords);
+
+        assertThrows(IllegalArgumentException.class, () -> AdvisoryRule.parse("x;y;humidity > 3"));
+        assertThrows(IllegalArgumentException.class, () -> AdvisoryRule.parse("x;y;forecast has fog"));
+        assertThrows(IllegalArgumentException.class, () -> AdvisoryRule.parse("x;y;temperature = 3"));
+        assertThrows(IllegalArgumentException.class, () -> AdvisoryRule.parse("x;temperature > 3"));
+    }
+
+    @Test
+    void defaultsMatchTheOldRecommendations() {
+        AdvisoryTable table = AdvisoryTable.DEFAULT;
+        Period p = new Period();
+        p.temperature = 75;
+        p.temperatureUnit = "F";
+        p.shortForecast = "Mostly Sunny";
+        p.derive();
+        assertEquals(1L << table.indexOf("hat") | 1L << table.indexOf("sunglasses"), table.evaluate(p));
+
+        p.temperature = 10;
+        p.temperatureUnit = "C";
+        p.shortForecast = "Chance Rain Showers";
+        p.derive();
+        // 10C is 50F
+        assertEquals(1L << table.indexOf("jacket") | 1L << table.indexOf("umbrella"), table.evaluate(p));
+    }
+
+    @Test
+    void batchMatchesPerPeriodEvaluation() throws Exception {
+        List<Period> periods;
+        try (InputStream in = getClass().getResourceAsStream("/forecast-hourly.json")) {
+            periods = ForecastParser.parse(in).properties.periods;
+        }
+        StringDictionary dict = new StringDictionary();
+        Map<GridPoint, ForecastSeries> forecasts = new LinkedHashMap<>();
+        for (int g = 0; g < 50; g++) {
+            ForecastSeries s = new ForecastSeries(dict);
+            for (Period p : periods) {
+                Period shifted = new Period();
+                shifted.startTime = p.startTime;
+                shifted.endTime = p.endTime;
+                shifted.temperature = p.temperature + g - 25;
+                shifted.temperatureUnit = p.temperatureUnit;
+                shifted.probabilityOfPrecipitation = p.probabilityOfPrecipitation;
+                shifted.windSpeed = p.windSpeed;
+                shifted.shortForecast = p.shortForecast;
+                shifted.derive();
+                s.add(shifted);
+            }
+            forecasts.put(new GridPoint("LOT", g, g), s);
+        }
+        forecasts.put(new GridPoint("LOT", 99, 99), new ForecastSeries(dict));
+        ForecastAnalytics analytics = new ForecastAnalytics(forecasts);
+        AdvisoryTable table = new AdvisoryTable(List.of(
+                AdvisoryRule.parse("hat;Wear a Hat?;temperature > 70"),
+                AdvisoryRule.parse("umbrella;Carry an Umbrella?;forecast has rain|snow & precipitation >= 30"),
+                AdvisoryRule.parse("kite;Fly a Kite?;wind >= 10 & wind <= 20"),
+                AdvisoryRule.parse("never;Never?;temperature > 70 & temperature < 60")));
+
+        AdvisoryTable.Result result = table.evaluate(analytics);
+
+        int row = 0;
+        long from = periods.get(0).startTime.getTime() / 1000;
+        long to = from + 24 * 3600L;
+        BitSet hats = new BitSet();
+        for (int g = 0; g < 50; g++) {
+            ForecastSeries s = forecasts.get(new GridPoint("LOT", g, g));
+            long windowMask = 0;
+            for (int i = 0; i < s.size(); i++, row++) {
+                long expected = table.evaluate(s.toPeriod(i));
+                assertEquals(expected, result.mask(row), "row " + row);
+                if (s.startEpochSecond(i) < to && s.endEpochSecond(i) > from) {
+                    windowMask |= expected;
+                }
+            }
+            assertEquals(windowMask, result.mask(new GridPoint("LOT", g, g), from, to));
+            if ((windowMask & 1) != 0) {
+                hats.set(analytics.indexOf(new GridPoint("LOT", g, g)));
+            }
+        }
+        assertEquals(analytics.periodCount(), row);
+        assertTrue(result.periods(table.indexOf("never")).isEmpty());
+        assertEquals(hats, result.gridPoints(0, from, to));
+        assertFalse(hats.isEmpty());
+        assertEquals(0, result.mask(new GridPoint("LOT", 99, 99), from, to));
+    }
+}
@@ -0,0 +1,83 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class BatchFetchTest {
+    private HttpServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private byte[] body;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            body = in.readAllBytes();
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/gridpoints/", exchange -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(20);
+                byte[] out = exchange.getRequestURI().getPath().contains("/BAD/")
+                        ? "not json".getBytes() : body;
+                exchange.sendResponseHeaders(200, out.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(out);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        WeatherAPI.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        WeatherAPI.getCache().clear();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        WeatherAPI.getCache().clear();
+    }
+
+    @Test
+    void badGridpointDoesNotFailBatch() {
+        List<GridPoint> points = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            points.add(new GridPoint("LOT", i, i));
+        }
+        points.add(new GridPoint("BAD", 1, 1));
+
+        Map<GridPoint, ForecastResult> results = WeatherAPI.getForecasts(points, 4);
+
+        assertEquals(41, results.size());
+        assertFalse(results.get(new GridPoint("BAD", 1, 1)).isSuccess());
+        for (int i = 0; i < 40; i++) {
+            ForecastResult r = results.get(new GridPoint("LOT", i, i));
+            assertTrue(r.isSuccess(), r.toString());
+            assertEquals(14, r.periods.size());
+        }
+        assertTrue(maxInFlight.get() <= 4, "saw " + maxInFlight.get() + " concurrent requests");
+    }
+}
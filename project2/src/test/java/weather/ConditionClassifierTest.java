@@ -0,0 +1,44 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ConditionClassifierTest {
+    static final String[] PHRASES = {
+            "Sunny", "Mostly Sunny", "Partly Sunny", "Partly Cloudy", "Mostly Cloudy",
+            "Chance Rain Showers", "Rain And Snow Likely", "Slight Chance Snow Showers",
+            "Showers And Thunderstorms Likely", "Mostly Clear", "Clear", "Patchy Fog",
+            "Clear Night", "SUNNY", "", "Chance Light Rain then Partly Sunny",
+    };
+
+    // the toLowerCase().contains() chain the day tiles used before
+    static Condition legacy(String shortForecast) {
+        String forecastLower = shortForecast.toLowerCase();
+        if (forecastLower.contains("storm")) return Condition.STORMY;
+        if (forecastLower.contains("partly") && forecastLower.contains("sun")) return Condition.PARTLY_SUNNY;
+        if (forecastLower.contains("sun")) return Condition.SUNNY;
+        if (forecastLower.contains("cloud")) return Condition.CLOUDY;
+        if (forecastLower.contains("rain")) return Condition.RAINY;
+        if (forecastLower.contains("snow")) return Condition.SNOWY;
+        if (forecastLower.contains("night") && forecastLower.contains("clear")) return Condition.CLEAR_NIGHT;
+        return Condition.OTHER;
+    }
+
+    @Test
+    void agreesWithContainsChain() {
+        for (String phrase : PHRASES) {
+            assertEquals(legacy(phrase), ConditionClassifier.classify(phrase), phrase);
+        }
+    }
+
+    @Test
+    void findsOverlappingKeywords() {
+        assertEquals(ConditionClassifier.SUN | ConditionClassifier.STORM,
+                ConditionClassifier.scan("sunstorm"));
+        assertEquals(ConditionClassifier.PARTLY | ConditionClassifier.CLOUD | ConditionClassifier.RAIN,
+                ConditionClassifier.scan("Partly Cloudy, Rain"));
+        assertEquals(0, ConditionClassifier.keywords(null));
+        assertTrue(ConditionClassifier.hasAny("Mostly Clear", ConditionClassifier.NIGHT | ConditionClassifier.CLEAR));
+    }
+}
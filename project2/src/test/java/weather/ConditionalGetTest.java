@@ -0,0 +1,106 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class ConditionalGetTest {
+    private static final String ETAG = "\"abc123\"";
+
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private byte[] body;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            body = in.readAllBytes();
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gridpoints/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.getResponseHeaders().add("Content-Type", "application/geo+json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        WeatherAPI.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        WeatherAPI.getCache().clear();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        WeatherAPI.getCache().clear();
+    }
+
+    @Test
+    void notModifiedReusesParsedRoot() {
+        Root first = WeatherAPI.refresh("LOT", 76, 73);
+        assertNotNull(first);
+        assertEquals(14, first.properties.periods.size());
+
+        Root second = WeatherAPI.refresh("LOT", 76, 73);
+        Root third = WeatherAPI.refresh("LOT", 76, 73);
+
+        assertEquals(1, fullResponses.get());
+        assertEquals(2, notModified.get());
+        // same instance means nothing was downloaded or parsed again
+        assertSame(first, second);
+        assertSame(first, third);
+    }
+
+    @Test
+    void warmedSnapshotIsRevalidatedOnFirstGet() throws IOException {
+        Path dir = Files.createTempDirectory("warm");
+        GridPoint gp = new GridPoint("LOT", 76, 73);
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            Root stored;
+            try (InputStream in = new ByteArrayInputStream(body)) {
+                stored = ForecastParser.parse(in);
+            }
+            // recent enough that a freshly computed expiry would call it current
+            stored.properties.updateTime = new Date();
+            store.append(gp, new ForecastCache.Entry(stored, ETAG, null));
+            assertEquals(1, WeatherAPI.warmCache(store));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        Root warmed = WeatherAPI.getCache().getStale(gp);
+        assertNull(WeatherAPI.getCache().getIfFresh(gp));
+
+        assertSame(warmed, WeatherAPI.getCache().get(gp));
+        assertEquals(1, notModified.get());
+        assertEquals(0, fullResponses.get());
+    }
+}
@@ -0,0 +1,116 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class DailySummaryTest {
+    private static final ZoneId CHICAGO = ZoneId.of("America/Chicago");
+
+    private static ArrayList<Period> fixture() throws Exception {
+        try (InputStream in = DailySummaryTest.class.getResourceAsStream("/forecast.json")) {
+            return ForecastParser.parse(in).properties.periods;
+        }
+    }
+
+    @Test
+    void matchesPerDayRescan() throws Exception {
+        ArrayList<Period> periods = fixture();
+        Map<LocalDate, DailySummary> days = DailySummary.summarize(periods, CHICAGO);
+
+        for (DailySummary day : days.values()) {
+            int high = Integer.MIN_VALUE;
+            int low = Integer.MAX_VALUE;
+            int precip = 0;
+            Map<String, Long> hours = new LinkedHashMap<>();
+            for (Period p : periods) {
+                if (p.startTime.toInstant().atZone(CHICAGO).toLocalDate().equals(day.date)) {
+                    high = Math.max(high, p.temperature);
+                    low = Math.min(low, p.temperature);
+                    precip = Math.max(precip, p.probabilityOfPrecipitation.value);
+                    hours.merge(p.shortForecast, p.endTime.getTime() - p.startTime.getTime(), Long::sum);
+                }
+            }
+            String dominant = null;
+            for (Map.Entry<String, Long> e : hours.entrySet()) {
+                if (dominant == null || e.getValue() > hours.get(dominant)) dominant = e.getKey();
+            }
+            assertEquals(high, day.high);
+            assertEquals(low, day.low);
+            assertEquals(precip, day.maxPrecipitation);
+            assertEquals(dominant, day.shortForecast);
+        }
+    }
+
+    @Test
+    void bucketsByLocalDate() throws Exception {
+        Map<LocalDate, DailySummary> days = DailySummary.summarize(fixture(), CHICAGO);
+        // 14 twelve hour periods starting 6am on March 1st
+        assertEquals(7, days.size());
+        DailySummary first = days.get(LocalDate.of(2025, 3, 1));
+        assertEquals(2, first.periodCount);
+        assertEquals(41, first.high);
+        assertEquals(40, first.low);
+        assertEquals("Sunny", first.shortForecast);
+        assertEquals(11, first.maxWindMph);
+        assertEquals(5, first.highCelsius());
+    }
+
+    @Test
+    void seriesGivesSameSummary() throws Exception {
+        ArrayList<Period> periods = fixture();
+        Map<LocalDate, DailySummary> fromPeriods = DailySummary.summarize(periods, CHICAGO);
+        Map<LocalDate, DailySummary> fromSeries = DailySummary.summarize(
+                ForecastSeries.from(periods, new StringDictionary()), CHICAGO);
+        assertEquals(fromPeriods.keySet(), fromSeries.keySet());
+        for (LocalDate d : fromPeriods.keySet()) {
+            assertEquals(fromPeriods.get(d).high, fromSeries.get(d).high);
+            assertEquals(fromPeriods.get(d).low, fromSeries.get(d).low);
+            assertEquals(fromPeriods.get(d).maxPrecipitation, fromSeries.get(d).maxPrecipitation);
+            assertEquals(fromPeriods.get(d).maxWindMph, fromSeries.get(d).maxWindMph);
+            assertEquals(fromPeriods.get(d).shortForecast, fromSeries.get(d).shortForecast);
+            assertEquals(fromPeriods.get(d).windSpeed, fromSeries.get(d).windSpeed);
+        }
+    }
+
+    @Test
+    void conditionCoveringMostHoursWins() throws Exception {
+        ArrayList<Period> periods = fixture();
+        Period morning = periods.get(0);
+        Period night = periods.get(1);
+        // squeeze the daytime period to two hours, so the night's condition covers more of the day
+        morning.endTime = new Date(morning.startTime.getTime() + 2 * 3600_000L);
+        DailySummary first = DailySummary.summarize(periods, CHICAGO).get(LocalDate.of(2025, 3, 1));
+        assertEquals(night.shortForecast, first.shortForecast);
+        assertEquals(night.windSpeed, first.windSpeed);
+        assertNotEquals(morning.shortForecast, night.shortForecast);
+    }
+
+    @Test
+    void celsiusPeriodsAreNormalized() throws Exception {
+        ArrayList<Period> periods = fixture();
+        // the day's 41°F and 40°F periods, sent as 10°C and 2°C instead
+        periods.get(0).temperature = 10;
+        periods.get(0).temperatureUnit = "C";
+        periods.get(1).temperature = 2;
+        periods.get(1).temperatureUnit = "C";
+        LocalDate date = LocalDate.of(2025, 3, 1);
+        DailySummary fromPeriods = DailySummary.summarize(periods, CHICAGO).get(date);
+        DailySummary fromSeries = DailySummary.summarize(
+                ForecastSeries.from(periods, new StringDictionary()), CHICAGO).get(date);
+        for (DailySummary day : new DailySummary[] {fromPeriods, fromSeries}) {
+            assertEquals(50, day.high);
+            assertEquals(36, day.low);
+            assertEquals(10, day.highCelsius());
+            assertEquals(2, day.lowCelsius());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ForecastAnalyticsTest {
+    private static final long START = OffsetDateTime.parse("2025-03-01T06:00:00-06:00").toEpochSecond();
+    private static final long HOURS_12 = 12 * 3600L;
+
+    // four 12 hour periods; temps and precipitation chances given in order
+    private static ForecastSeries series(StringDictionary dict, String unit, int[] temps, int[] precip) {
+        ForecastSeries s = new ForecastSeries(dict);
+        for (int i = 0; i < temps.length; i++) {
+            Period p = new Period();
+            p.startTime = new Date((START + i * HOURS_12) * 1000);
+            p.endTime = new Date((START + (i + 1) * HOURS_12) * 1000);
+            p.temperature = temps[i];
+            p.temperatureUnit = unit;
+            p.probabilityOfPrecipitation = new ProbabilityOfPrecipitation();
+            p.probabilityOfPrecipitation.value = precip[i];
+            p.windSpeed = (i * 10) + " mph";
+            p.derive();
+            s.add(p);
+        }
+        return s;
+    }
+
+    private static ForecastAnalytics sample() {
+        StringDictionary dict = new StringDictionary();
+        Map<GridPoint, ForecastSeries> forecasts = new HashMap<>();
+        forecasts.put(new GridPoint("LOT", 76, 73), series(dict, "F", new int[]{40, 30, 45, 35}, new int[]{10, 20, 80, 30}));
+        forecasts.put(new GridPoint("LOT", 70, 70), series(dict, "F", new int[]{50, 32, 52, 38}, new int[]{75, 0, 0, 0}));
+        forecasts.put(new GridPoint("MKX", 10, 20), series(dict, "C", new int[]{0, -10, 5, -5}, new int[]{0, 0, 0, 95}));
+        forecasts.put(new GridPoint("OKX", 33, 35), new ForecastSeries(dict));
+        return new ForecastAnalytics(forecasts);
+    }
+
+    @Test
+    void precipitationWithinWindow() {
+        ForecastAnalytics a = sample();
+
+        // first 48 hours: everything but the empty gridpoint is in range, two reach 70%
+        assertEquals(List.of(new GridPoint("LOT", 70, 70), new GridPoint("LOT", 76, 73), new GridPoint("MKX", 10, 20)),
+                a.precipitationAtLeast(50, START, START + 48 * 3600L));
+        assertEquals(List.of(new GridPoint("LOT", 70, 70), new GridPoint("LOT", 76, 73)),
+                a.precipitationAtLeast(70, START, START + 36 * 3600L));
+        // only the first period overlaps the first 12 hours
+        assertEquals(List.of(new GridPoint("LOT", 70, 70)), a.precipitationAtLeast(70, START, START + HOURS_12));
+        // winds are 0, 10, 20, 30 mph everywhere
+        assertEquals(3, a.windAtLeast(20, START, START + 36 * 3600L).size());
+        assertEquals(List.of(), a.windAtLeast(20, START, START + 24 * 3600L));
+    }
+
+    @Test
+    void ranksAcrossUnits() {
+        ForecastAnalytics a = sample();
+        long end = START + 48 * 3600L;
+
+        // 5C is 41F, -10C is 14F
+        assertEquals(List.of(new ForecastAnalytics.Ranked(new GridPoint("LOT", 70, 70), 52),
+                        new ForecastAnalytics.Ranked(new GridPoint("LOT", 76, 73), 45)),
+                a.warmest(START, end, 2));
+        assertEquals(new ForecastAnalytics.Ranked(new GridPoint("MKX", 10, 20), 14), a.coldest(START, end, 1).get(0));
+        assertEquals(3, a.coldest(START, end, 10).size());
+
+        Map<String, ForecastAnalytics.RegionExtremes> regions = a.regionalExtremes(START, end);
+        assertEquals(List.of("LOT", "MKX"), List.copyOf(regions.keySet()));
+        assertEquals(new GridPoint("LOT", 70, 70), regions.get("LOT").high().gridPoint());
+        assertEquals(new GridPoint("LOT", 76, 73), regions.get("LOT").low().gridPoint());
+        assertEquals(30, regions.get("LOT").low().value());
+    }
+
+    @Test
+    void parallelMatchesSequentialScan() throws Exception {
+        List<Period> periods;
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            periods = ForecastParser.parse(in).properties.periods;
+        }
+        StringDictionary dict = new StringDictionary();
+        Map<GridPoint, ForecastSeries> forecasts = new HashMap<>();
+        for (int g = 0; g < 2000; g++) {
+            ForecastSeries s = new ForecastSeries(dict);
+            for (Period p : periods) {
+                Period shifted = new Period();
+                shifted.startTime = p.startTime;
+                shifted.endTime = p.endTime;
+                shifted.temperature = p.temperature + g % 17;
+                shifted.temperatureUnit = p.temperatureUnit;
+                shifted.probabilityOfPrecipitation = new ProbabilityOfPrecipitation();
+                shifted.probabilityOfPrecipitation.value = (p.probabilityOfPrecipitation.value + g * 7) % 101;
+                shifted.derive();
+                s.add(shifted);
+            }
+            forecasts.put(new GridPoint("R" + g % 5, g, g), s);
+        }
+        ForecastAnalytics a = new ForecastAnalytics(forecasts);
+        long from = periods.get(0).startTime.getTime() / 1000;
+        long to = from + 48 * 3600L;
+
+        int expected = 0;
+        for (ForecastSeries s : forecasts.values()) {
+            for (int i = 0; i < s.size(); i++) {
+                if (s.startEpochSecond(i) < to && s.endEpochSecond(i) > from && s.precipitation(i) >= 70) {
+                    expected++;
+                    break;
+                }
+            }
+        }
+        assertEquals(2000, a.size());
+        assertEquals(expected, a.precipitationAtLeast(70, from, to).size());
+        assertEquals(5, a.regionalExtremes(from, to).size());
+    }
+}
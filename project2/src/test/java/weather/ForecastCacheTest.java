@@ -0,0 +1,138 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ForecastCacheTest {
+
+    static class MutableClock extends Clock {
+        long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    static Root rootUpdatedAt(long millis) {
+        Root r = new Root();
+        r.properties = new Properties();
+        r.properties.updateTime = new Date(millis);
+        r.properties.periods = new ArrayList<>();
+        return r;
+    }
+
+    @Test
+    void hitsUntilNextExpectedUpdate() {
+        MutableClock clock = new MutableClock(1_000_000);
+        AtomicInteger loads = new AtomicInteger();
+        ForecastCache cache = new ForecastCache(10, Duration.ofHours(1), gp -> {
+            loads.incrementAndGet();
+            return rootUpdatedAt(clock.millis);
+        }, clock);
+        GridPoint gp = new GridPoint("LOT", 76, 73);
+
+        Root first = cache.get(gp);
+        assertSame(first, cache.get(gp));
+        assertEquals(1, loads.get());
+
+        clock.millis += Duration.ofMinutes(59).toMillis();
+        assertSame(first, cache.get(gp));
+
+        clock.millis += Duration.ofMinutes(2).toMillis();
+        assertNotSame(first, cache.get(gp));
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void oldUpdateTimeStillGetsMinimumTtl() {
+        MutableClock clock = new MutableClock(Duration.ofDays(1).toMillis());
+        ForecastCache cache = new ForecastCache(10, Duration.ofHours(1), gp -> rootUpdatedAt(0), clock);
+        GridPoint gp = new GridPoint("LOT", 1, 1);
+        Root r = cache.get(gp);
+        clock.millis += ForecastCache.MIN_TTL.toMillis() - 1;
+        assertSame(r, cache.getIfFresh(gp));
+        clock.millis += 1;
+        assertNull(cache.getIfFresh(gp));
+        assertSame(r, cache.getStale(gp));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        MutableClock clock = new MutableClock(0);
+        ForecastCache cache = new ForecastCache(2, Duration.ofHours(1), gp -> rootUpdatedAt(0), clock);
+        GridPoint a = new GridPoint("LOT", 1, 1);
+        GridPoint b = new GridPoint("LOT", 2, 2);
+        GridPoint c = new GridPoint("LOT", 3, 3);
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertNotNull(cache.getIfFresh(a));
+        assertNull(cache.getIfFresh(b));
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ForecastCache cache = new ForecastCache(10, gp -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rootUpdatedAt(System.currentTimeMillis());
+        });
+        GridPoint gp = new GridPoint("LOT", 76, 73);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            ArrayList<Future<Root>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get(gp)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            Root first = results.get(0).get();
+            for (Future<Root> f : results) {
+                assertSame(first, f.get());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ForecastDeltaTest {
+
+    private static Root fixture() throws IOException {
+        try (InputStream in = ForecastDeltaTest.class.getResourceAsStream("/forecast.json")) {
+            return ForecastParser.parse(in);
+        }
+    }
+
+    @Test
+    void rebuildsTheNewerVersion() throws IOException {
+        Root before = fixture();
+        Root after = fixture();
+        // an hour later: the first period has ended, one is new at the end, one was revised
+        Period gone = after.properties.periods.remove(0);
+        Period added = new Period();
+        added.number = 15;
+        added.name = "Next Week";
+        added.startTime = new Date(after.properties.periods.get(12).endTime.getTime());
+        added.endTime = new Date(added.startTime.getTime() + 12 * 3600_000L);
+        added.temperature = 41;
+        added.temperatureUnit = "F";
+        added.shortForecast = "Light Snow";
+        after.properties.periods.add(added);
+        Period revised = after.properties.periods.get(2);
+        revised.temperature -= 3;
+        revised.probabilityOfPrecipitation.value += 20;
+        revised.shortForecast = "Rain Showers";
+        after.properties.generatedAt = new Date(after.properties.generatedAt.getTime() + 3600_000L);
+
+        ForecastCache.Entry base = new ForecastCache.Entry(before, "\"a\"", null);
+        ForecastCache.Entry next = new ForecastCache.Entry(after, "\"b\"", "Sat, 01 Jan 2022 00:00:00 GMT");
+        byte[] delta = ForecastDelta.encode(base, next);
+        assertTrue(delta.length < 200, "delta is " + delta.length + " bytes");
+
+        ForecastCache.Entry rebuilt = ForecastDelta.apply(base, ByteBuffer.wrap(delta));
+        assertEquals("\"b\"", rebuilt.etag);
+        assertEquals("Sat, 01 Jan 2022 00:00:00 GMT", rebuilt.lastModified);
+        assertEquals(after.properties.generatedAt, rebuilt.root.properties.generatedAt);
+        assertEquals(after.properties.updateTime, rebuilt.root.properties.updateTime);
+        assertEquals(after.properties.periods.size(), rebuilt.root.properties.periods.size());
+        for (int i = 0; i < after.properties.periods.size(); i++) {
+            assertEquals(0, ForecastDelta.changedFields(after.properties.periods.get(i),
+                    rebuilt.root.properties.periods.get(i)), "period " + i);
+        }
+        // derived fields are filled in like a parsed period's
+        assertEquals(revised.windMaxMph, rebuilt.root.properties.periods.get(2).windMaxMph);
+        assertTrue(revised.windMaxMph > 0);
+
+        List<ForecastDelta.Change> changes = ForecastDelta.changes(before, after);
+        assertEquals(2, changes.size());
+        assertSame(revised, changes.get(0).after());
+        assertEquals(ForecastDelta.TEMPERATURE | ForecastDelta.PRECIPITATION | ForecastDelta.SHORT_FORECAST,
+                changes.get(0).fields());
+        assertNull(changes.get(1).before());
+        assertSame(added, changes.get(1).after());
+        assertNotSame(gone, changes.get(0).before());
+    }
+
+    @Test
+    void identicalVersionsNeedAlmostNothing() throws IOException {
+        ForecastCache.Entry base = new ForecastCache.Entry(fixture(), null, null);
+        ForecastCache.Entry same = new ForecastCache.Entry(fixture(), null, null);
+        // header, properties flag, period count, then index and empty mask per period
+        assertEquals(3 + 2 * 14, ForecastDelta.encode(base, same).length);
+        assertTrue(ForecastDelta.changes(base.root, same.root).isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+class ForecastSeriesTest {
+
+    @Test
+    void parsesWindSpeedText() {
+        assertEquals(10, WindSpeed.min("10 to 15 mph"));
+        assertEquals(15, WindSpeed.max("10 to 15 mph"));
+        assertEquals(5, WindSpeed.min("5 mph"));
+        assertEquals(5, WindSpeed.max("5 mph"));
+        assertEquals(-1, WindSpeed.max(""));
+        assertEquals(-1, WindSpeed.min(null));
+    }
+
+    @Test
+    void roundTripsPeriods() throws Exception {
+        ArrayList<Period> periods;
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            periods = ForecastParser.parse(in).properties.periods;
+        }
+        StringDictionary dict = new StringDictionary();
+        ForecastSeries series = ForecastSeries.from(periods, dict);
+
+        assertEquals(periods.size(), series.size());
+        for (int i = 0; i < periods.size(); i++) {
+            Period expected = periods.get(i);
+            Period actual = series.toPeriod(i);
+            assertEquals(expected.startTime, actual.startTime);
+            assertEquals(expected.endTime, actual.endTime);
+            assertEquals(expected.temperature, actual.temperature);
+            assertEquals(expected.probabilityOfPrecipitation.value, actual.probabilityOfPrecipitation.value);
+            assertEquals(expected.windSpeed, actual.windSpeed);
+            assertEquals(expected.shortForecast, actual.shortForecast);
+            assertEquals(expected.isDaytime, actual.isDaytime);
+        }
+        // 7 phrases, 1 icon, 1 direction, 1 unit and 14 names
+        assertEquals(24, dict.size());
+    }
+
+    @Test
+    void sharesDictionaryCodes() {
+        StringDictionary dict = new StringDictionary();
+        assertEquals(dict.intern("Sunny"), dict.intern(new String("Sunny")));
+        assertEquals(StringDictionary.NULL_CODE, dict.intern(null));
+        assertNull(dict.get(StringDictionary.NULL_CODE));
+    }
+
+    @Test
+    void growsFromSmallOrTrimmedCapacity() throws Exception {
+        ArrayList<Period> periods;
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            periods = ForecastParser.parse(in).properties.periods;
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ForecastSeries(new StringDictionary(), 0));
+
+        ForecastSeries small = new ForecastSeries(new StringDictionary(), 1);
+        ForecastSeries trimmed = new ForecastSeries(new StringDictionary());
+        trimmed.trim();
+        for (Period p : periods) {
+            small.add(p);
+            trimmed.add(p);
+        }
+        assertEquals(periods.size(), small.size());
+        assertEquals(periods.size(), trimmed.size());
+        assertEquals(periods.get(periods.size() - 1).name, trimmed.toPeriod(periods.size() - 1).name);
+    }
+}
@@ -0,0 +1,115 @@
+package weather;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Load harness for ForecastServer against a local stub upstream (no network needed), or
+ * against recorded responses when a replay directory is given (see ReplayForecastSource).
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=weather.ForecastServerLoad \
+ *       -Dexec.args="[clients] [seconds] [gridpoints] [upstream latency ms] [replay dir]"
+ */
+public class ForecastServerLoad {
+    public static void main(String[] args) throws Exception {
+        // the stub upstream starts first, so set this before ForecastServer gets the chance
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int gridpoints = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long upstreamLatency = args.length > 3 ? Long.parseLong(args[3]) : 50;
+        ReplayForecastSource replay = args.length > 4 ? ReplayForecastSource.open(Paths.get(args[4])) : null;
+
+        try (StubUpstream upstream = new StubUpstream(upstreamLatency)) {
+            if (replay != null) {
+                replay.setLatency(Duration.ofMillis(upstreamLatency), Duration.ZERO);
+                WeatherAPI.setForecastSource(replay);
+            } else {
+                WeatherAPI.setBaseUrl(upstream.baseUrl());
+            }
+            try (ForecastServer server = ForecastServer.start(new InetSocketAddress("127.0.0.1", 0))) {
+                HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                String base = "http://127.0.0.1:" + server.port() + ForecastServer.PREFIX + "LOAD/";
+                long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+                AtomicInteger ok = new AtomicInteger();
+                AtomicInteger failed = new AtomicInteger();
+                AtomicLong bytes = new AtomicLong();
+                long[][] latencies = new long[clients][];
+                int[] counts = new int[clients];
+
+                try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (int c = 0; c < clients; c++) {
+                        int id = c;
+                        pool.submit(() -> {
+                            long[] mine = new long[1024];
+                            int n = 0;
+                            int i = id;
+                            while (System.nanoTime() < deadline) {
+                                URI uri = URI.create(base + (i % gridpoints) + "," + (i % gridpoints));
+                                i++;
+                                long t0 = System.nanoTime();
+                                try {
+                                    HttpResponse<byte[]> r = client.send(HttpRequest.newBuilder(uri).build(),
+                                            HttpResponse.BodyHandlers.ofByteArray());
+                                    if (r.statusCode() == 200) {
+                                        ok.incrementAndGet();
+                                        bytes.addAndGet(r.body().length);
+                                    } else {
+                                        failed.incrementAndGet();
+                                    }
+                                } catch (Exception e) {
+                                    failed.incrementAndGet();
+                                }
+                                if (n == mine.length) {
+                                    mine = Arrays.copyOf(mine, n * 2);
+                                }
+                                mine[n++] = System.nanoTime() - t0;
+                            }
+                            latencies[id] = mine;
+                            counts[id] = n;
+                            return null;
+                        });
+                    }
+                }
+
+                int total = 0;
+                for (int n : counts) total += n;
+                long[] all = new long[total];
+                int pos = 0;
+                for (int c = 0; c < clients; c++) {
+                    System.arraycopy(latencies[c], 0, all, pos, counts[c]);
+                    pos += counts[c];
+                }
+                Arrays.sort(all);
+                System.out.printf("%d clients, %d s, %d gridpoints, upstream latency %d ms%n",
+                        clients, seconds, gridpoints, upstreamLatency);
+                System.out.printf("requests: %d ok, %d failed, %.0f req/s, %.1f MB served%n",
+                        ok.get(), failed.get(), total / (double) seconds, bytes.get() / 1e6);
+                System.out.printf("latency: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                        percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), percentile(all, 1.0));
+                System.out.printf("upstream requests: %d, %s%n",
+                        replay != null ? replay.requestCount() : upstream.requests.get(), WeatherAPI.getCache());
+            }
+        } finally {
+            WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+}
@@ -0,0 +1,96 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+
+class ForecastServerTest {
+    private StubUpstream upstream;
+    private ForecastServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws Exception {
+        upstream = new StubUpstream(0);
+        WeatherAPI.setBaseUrl(upstream.baseUrl());
+        WeatherAPI.getCache().clear();
+        server = ForecastServer.start(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        upstream.close();
+        WeatherAPI.setFetchPolicy(FetchPolicy.DEFAULT);
+        WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        WeatherAPI.getCache().clear();
+    }
+
+    private HttpResponse<byte[]> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void servesPeriodsAndDailySummaries() throws Exception {
+        HttpResponse<byte[]> first = get("/forecast/LOT/76,73?tz=America/Chicago");
+        assertEquals(200, first.statusCode());
+        JsonNode body = ForecastParser.MAPPER.readTree(first.body());
+        assertEquals("LOT/76,73", body.get("gridPoint").asText());
+        assertEquals(14, body.get("periods").size());
+        assertEquals(7, body.get("daily").size());
+        assertEquals("2025-03-01", body.get("daily").get(0).get("date").asText());
+        assertEquals("SUNNY", body.get("daily").get(0).get("condition").asText());
+
+        HttpResponse<byte[]> second = get("/forecast/LOT/76,73?tz=America/Chicago");
+        assertArrayEquals(first.body(), second.body());
+        assertEquals(1, upstream.requests.get());
+    }
+
+    @Test
+    void rejectsBadPaths() throws Exception {
+        assertEquals(400, get("/forecast/LOT/76").statusCode());
+        assertEquals(400, get("/forecast/LOT/x,y").statusCode());
+        assertEquals(400, get("/forecast/LOT/1,2?tz=Not/AZone").statusCode());
+        assertNull(ForecastServer.parseGridPoint("/forecast//1,2"));
+        assertEquals(new GridPoint("LOT", 1, 2), ForecastServer.parseGridPoint("/forecast/LOT/1,2"));
+    }
+
+    @Test
+    void mapsUpstreamFailuresToStatuses() throws Exception {
+        // upstream answers 404 for region NONE and 503 for everything else
+        HttpServer failing = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        failing.createContext("/gridpoints/", exchange -> {
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().contains("/NONE/") ? 404 : 503, -1);
+            exchange.close();
+        });
+        failing.start();
+        try {
+            WeatherAPI.setFetchPolicy(new FetchPolicy(Duration.ofSeconds(1), Duration.ofSeconds(1), 1,
+                    Duration.ZERO, Duration.ZERO, 1, Duration.ofSeconds(60)));
+            WeatherAPI.setBaseUrl("http://127.0.0.1:" + failing.getAddress().getPort());
+
+            assertEquals(404, get("/forecast/NONE/1,1").statusCode());
+            assertEquals(502, get("/forecast/LOT/1,1").statusCode());
+            // the 503 opened the circuit, so this one never reaches upstream
+            HttpResponse<byte[]> open = get("/forecast/LOT/2,2");
+            assertEquals(503, open.statusCode());
+            long retryAfter = Long.parseLong(open.headers().firstValue("Retry-After").orElseThrow());
+            assertTrue(retryAfter > 0 && retryAfter <= 60, "Retry-After " + retryAfter);
+        } finally {
+            failing.stop(0);
+        }
+    }
+}
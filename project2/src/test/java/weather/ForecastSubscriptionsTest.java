@@ -0,0 +1,86 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ForecastSubscriptionsTest {
+
+    private static Root updatedAt(long millis) {
+        Root r = new Root();
+        r.properties = new Properties();
+        r.properties.updateTime = new Date(millis);
+        r.properties.periods = new ArrayList<>();
+        return r;
+    }
+
+    @Test
+    void notifiesOnlyWhenUpdateTimeChanges() throws Exception {
+        GridPoint gp = new GridPoint("LOT", 76, 73);
+        AtomicInteger loads = new AtomicInteger();
+        // updateTime changes on the 4th load
+        ForecastCache cache = new ForecastCache(10, Duration.ofHours(1),
+                key -> updatedAt(loads.incrementAndGet() < 4 ? 1_000 : 2_000), Clock.systemUTC());
+        cache.put(gp, updatedAt(1_000));
+
+        List<Long> seen = new CopyOnWriteArrayList<>();
+        try (ForecastSubscriptions subs = new ForecastSubscriptions(cache, Duration.ofMillis(20), 0.2)) {
+            subs.subscribe(gp, (g, root) -> seen.add(root.properties.updateTime.getTime()));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (loads.get() < 6 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(loads.get() >= 6);
+        assertEquals(List.of(2_000L), seen);
+    }
+
+    @Test
+    void sharesOneRefreshPerGridpoint() throws Exception {
+        GridPoint a = new GridPoint("LOT", 1, 1);
+        GridPoint b = new GridPoint("LOT", 2, 2);
+        ConcurrentHashMap<GridPoint, AtomicInteger> loads = new ConcurrentHashMap<>();
+        AtomicInteger version = new AtomicInteger();
+        ForecastCache cache = new ForecastCache(10, Duration.ofHours(1), key -> {
+            loads.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            return updatedAt(version.incrementAndGet());
+        }, Clock.systemUTC());
+
+        AtomicInteger callsA1 = new AtomicInteger();
+        AtomicInteger callsA2 = new AtomicInteger();
+        try (ForecastSubscriptions subs = new ForecastSubscriptions(cache, Duration.ofMillis(30), 0.1)) {
+            ForecastSubscription s1 = subs.subscribe(a, (g, r) -> callsA1.incrementAndGet());
+            subs.subscribe(a, (g, r) -> callsA2.incrementAndGet());
+            ForecastSubscription sb = subs.subscribe(b, (g, r) -> { });
+            assertEquals(2, subs.gridPointCount());
+            Thread.sleep(300);
+            sb.close();
+            assertEquals(1, subs.gridPointCount());
+            s1.close();
+        }
+        // both listeners on a were driven by the same refreshes (give or take one in flight at close)
+        assertTrue(Math.abs(callsA1.get() - callsA2.get()) <= 1);
+        assertTrue(loads.get(a).get() - callsA1.get() <= 1);
+        assertTrue(callsA1.get() >= 3);
+    }
+
+    @Test
+    void jitterStaysInsideBounds() {
+        try (ForecastSubscriptions subs = new ForecastSubscriptions(
+                new ForecastCache(1, key -> null), Duration.ofSeconds(100), 0.2)) {
+            for (int i = 0; i < 1000; i++) {
+                long d = subs.nextDelay();
+                assertTrue(d >= 80_000 && d <= 120_000, "delay " + d);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class HourlySeriesTest {
+    private static final long START = OffsetDateTime.parse("2025-03-01T06:00:00-06:00").toEpochSecond();
+
+    private static HourlySeries hours(int capacity, int from, int count) {
+        HourlySeries s = new HourlySeries(new StringDictionary(), capacity);
+        for (int i = from; i < from + count; i++) {
+            s.put(START + i * 3600L, START + (i + 1) * 3600L, true, i, "F", (i * 37) % 101, 5, 10, "N", "Sunny");
+        }
+        return s;
+    }
+
+    @Test
+    void ringKeepsTheNewestHoursInOrder() {
+        HourlySeries s = hours(24, 0, 30);
+
+        assertEquals(24, s.size());
+        assertEquals(START + 6 * 3600L, s.startEpochSecond(0));
+        assertEquals(29, s.temperature(23));
+        // an hour already held is overwritten, one older than the window is refused
+        assertTrue(s.put(START + 10 * 3600L, START + 11 * 3600L, false, -5, "F", 0, 0, 0, "S", "Snow"));
+        assertEquals(-5, s.temperature(4));
+        assertEquals("Snow", s.shortForecast(4));
+        assertFalse(s.put(START, START + 3600L, false, 0, "F", 0, 0, 0, "S", "Snow"));
+        assertEquals(24, s.size());
+    }
+
+    @Test
+    void windowedQueries() {
+        HourlySeries s = hours(168, 0, 100);
+
+        HourlySeries next = s.nextHours(START + 10 * 3600L + 60, 6);
+        assertEquals(6, next.size());
+        assertEquals(10, next.temperature(0));
+        assertEquals(15, next.temperature(5));
+
+        s.dropBefore(START + 50 * 3600L);
+        assertEquals(50, s.size());
+        assertEquals(50, s.temperature(0));
+
+        int[] rolling = s.rollingMaxPrecipitation(5);
+        for (int i = 0; i < s.size(); i++) {
+            assertEquals(s.maxPrecipitation(i, i + 5), rolling[i], "hour " + i);
+        }
+    }
+
+    @Test
+    void streamsHourlyPayloadWithoutPeriods() throws IOException {
+        HourlySeries s = new HourlySeries(new StringDictionary());
+        try (InputStream in = getClass().getResourceAsStream("/forecast-hourly.json")) {
+            ForecastParser.parseHourly(in, s);
+        }
+
+        assertEquals(156, s.size());
+        assertEquals(START, s.startEpochSecond(0));
+        assertEquals(START + 3600L, s.endEpochSecond(0));
+        assertEquals(30, s.temperature(0));
+        assertEquals(0, s.precipitation(5)); // null value
+        assertEquals(13, s.precipitation(1));
+        assertEquals(6, s.windMinMph(1));
+        assertEquals("Mostly Sunny", s.shortForecast(1));
+        assertEquals(OffsetDateTime.parse("2025-03-01T11:47:31+00:00").toEpochSecond() * 1000, s.getUpdateTime());
+    }
+
+    @Test
+    void fetchesHourlyForecast() throws Exception {
+        try (StubUpstream upstream = new StubUpstream(0)) {
+            WeatherAPI.setBaseUrl(upstream.baseUrl());
+            HourlySeries first = WeatherAPI.getHourlyForecast("LOT", 77, 77);
+            assertEquals(156, first.size());
+            assertSame(first, WeatherAPI.getHourlyForecast("LOT", 77, 77));
+            assertEquals(1, upstream.requests.get());
+        } finally {
+            WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneRefresh() throws Exception {
+        try (StubUpstream upstream = new StubUpstream(200);
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            WeatherAPI.setBaseUrl(upstream.baseUrl());
+            List<Future<HourlySeries>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> WeatherAPI.getHourlyForecast("LOT", 78, 78)));
+            }
+            HourlySeries first = results.get(0).get();
+            for (Future<HourlySeries> r : results) {
+                assertSame(first, r.get());
+            }
+            assertEquals(1, upstream.requests.get());
+        } finally {
+            WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        }
+    }
+}
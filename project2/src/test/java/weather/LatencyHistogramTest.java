@@ -0,0 +1,57 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram("test", "ns");
+        for (long v = 1; v <= 10_000; v++) {
+            h.record(v * 1000);
+        }
+
+        assertEquals(10_000, h.getCount());
+        assertEquals(10_000_000, h.getMax());
+        assertEquals(5_000_500, h.getMean(), 1);
+        assertEquals(5_000_000, h.percentile(0.5), 5_000_000 / 16.0);
+        assertEquals(9_900_000, h.percentile(0.99), 9_900_000 / 16.0);
+        assertEquals(10_000_000, h.percentile(1.0));
+    }
+
+    @Test
+    void bucketsCoverTheWholeRange() {
+        long previous = -1;
+        for (int i = 0; i <= LatencyHistogram.index(Long.MAX_VALUE); i++) {
+            long bound = LatencyHistogram.upperBound(i);
+            assertTrue(bound > previous, "bucket " + i);
+            assertEquals(i, LatencyHistogram.index(bound));
+            previous = bound;
+        }
+        assertEquals(Long.MAX_VALUE, previous);
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram("test", "ns");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    h.record(i);
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(800_000, h.getCount());
+        assertEquals(99_999, h.getMax());
+    }
+}
@@ -0,0 +1,52 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+    @AfterEach
+    void restore() {
+        WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        WeatherAPI.getCache().clear();
+    }
+
+    @Test
+    void fetchRecordsEveryStage() throws Exception {
+        long fetches = Metrics.timer("fetch.http").getCount();
+        long parses = Metrics.timer("parse.bind").getCount();
+        try (StubUpstream upstream = new StubUpstream(0)) {
+            WeatherAPI.setBaseUrl(upstream.baseUrl());
+            WeatherAPI.getCache().clear();
+            assertNotNull(WeatherAPI.getForecast("LOT", 90, 90));
+        }
+
+        assertEquals(fetches + 1, Metrics.timer("fetch.http").getCount());
+        assertEquals(parses + 1, Metrics.timer("parse.bind").getCount());
+        assertTrue(Metrics.histogram("fetch.body.bytes", "bytes").getMax() > 1000);
+        assertEquals(14, Metrics.histogram("parse.periods", "periods").getMax());
+        assertTrue(Metrics.dump().contains("fetch.http"));
+    }
+
+    @Test
+    void exposedThroughJmx() throws Exception {
+        Metrics.recordNanos("test.stage", 2_000_000);
+        Metrics.increment("test.events");
+        Metrics.registerMBean();
+        Metrics.registerMBean();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        assertTrue((Double) server.getAttribute(name, "test.stage.count") >= 1);
+        assertEquals(2.0, (Double) server.getAttribute(name, "test.stage.max"), 0.2);
+        assertTrue((Long) server.getAttribute(name, "test.events") >= 1);
+        assertTrue(((String) server.invoke(name, "dump", null, null)).contains("test.stage"));
+    }
+}
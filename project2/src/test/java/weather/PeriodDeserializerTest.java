@@ -0,0 +1,75 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PeriodDeserializerTest {
+
+    private static Period period(String json) throws IOException {
+        return ForecastParser.PERIOD_READER.readValue(json);
+    }
+
+    @Test
+    void windAndTemperatureAreNumericAtBindTime() throws IOException {
+        Period p = period("{\"temperature\": 41, \"temperatureUnit\": \"F\", \"windSpeed\": \"10 to 15 mph\","
+                + " \"windDirection\": \"SSW\", \"startTime\": \"2025-03-01T06:00:00-06:00\"}");
+
+        assertEquals(10, p.windMinMph);
+        assertEquals(15, p.windMaxMph);
+        assertEquals(202.5, p.windDirectionDegrees);
+        assertSame("SSW", p.windDirection);
+        assertEquals(5.0, p.temperatureCelsius, 1e-9);
+        assertEquals("10 to 15 mph", p.windSpeed);
+        assertEquals(1740830400000L, p.startTime.getTime());
+    }
+
+    @Test
+    void unitMayComeAfterTheValue() throws IOException {
+        Period p = period("{\"temperatureUnit\": \"C\", \"temperature\": -3, \"windSpeed\": \"5 mph\"}");
+
+        assertEquals(-3.0, p.temperatureCelsius);
+        assertEquals(5, p.windMinMph);
+        assertEquals(5, p.windMaxMph);
+        assertTrue(Double.isNaN(p.windDirectionDegrees));
+    }
+
+    @Test
+    void everyPathGivesTheSameNumbers() throws IOException {
+        String json;
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<Period> streamed = WeatherAPI.getObject(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).properties.periods;
+        List<Period> bound = WeatherAPI.getObject(json).properties.periods;
+        List<Period> fromSeries = ForecastSeries.from(streamed, new StringDictionary()).toPeriods();
+
+        for (int i = 0; i < streamed.size(); i++) {
+            Period expected = new Period();
+            expected.windSpeed = streamed.get(i).windSpeed;
+            expected.windDirection = streamed.get(i).windDirection;
+            expected.temperature = streamed.get(i).temperature;
+            expected.temperatureUnit = streamed.get(i).temperatureUnit;
+            expected.derive();
+            for (Period p : List.of(streamed.get(i), bound.get(i), fromSeries.get(i))) {
+                assertEquals(expected.windMinMph, p.windMinMph);
+                assertEquals(expected.windMaxMph, p.windMaxMph);
+                assertEquals(expected.windDirectionDegrees, p.windDirectionDegrees);
+                assertEquals(expected.temperatureCelsius, p.temperatureCelsius, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void celsiusIsRoundedNotTruncated() {
+        assertEquals(-1, Temperature.roundCelsius(31)); // -0.56
+        assertEquals(2, Temperature.roundCelsius(35));  // 1.67
+        assertEquals(37.0, Temperature.toCelsius(98.6), 1e-9);
+    }
+}
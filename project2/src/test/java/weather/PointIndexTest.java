@@ -0,0 +1,106 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+class PointIndexTest {
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    // fake /points: one gridpoint per 0.02 degrees, nothing south of 20N
+    private GridPoint lookup(double lat, double lon) {
+        lookups.incrementAndGet();
+        if (lat < 20) {
+            return null;
+        }
+        return new GridPoint("LOT", (int) Math.floor(lon / 0.02), (int) Math.floor(lat / 0.02));
+    }
+
+    @Test
+    void nearbyCoordinatesShareOneLookup() throws IOException {
+        PointIndex index = new PointIndex(this::lookup);
+
+        GridPoint a = index.resolve(41.8781, -87.6298);
+        GridPoint b = index.resolve(41.8749, -87.6201);
+        GridPoint c = index.resolve(41.9500, -87.6298);
+
+        assertSame(a, b);
+        assertNotEquals(a, c);
+        assertEquals(2, lookups.get());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void uncoveredLocationsAreRememberedToo() throws IOException {
+        PointIndex index = new PointIndex(this::lookup);
+
+        assertNull(index.resolve(10.001, -40.001));
+        assertNull(index.resolve(10.002, -40.002));
+        assertTrue(index.isResolved(10.003, -40.003));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void survivesRestart() throws IOException {
+        Path file = dir.resolve("points.idx");
+        GridPoint chicago;
+        try (PointIndex index = PointIndex.open(file, this::lookup)) {
+            chicago = index.resolve(41.8781, -87.6298);
+            index.resolve(10.0, -40.0);
+        }
+        // a half written line from a crash is dropped
+        Files.write(file, "4187 -876".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (PointIndex index = PointIndex.open(file, this::lookup)) {
+            assertEquals(2, index.size());
+            assertEquals(chicago, index.resolve(41.8781, -87.6298));
+            assertNull(index.resolve(10.0, -40.0));
+            assertEquals(2, lookups.get());
+            index.resolve(35.0, -90.0);
+        }
+        assertEquals(3, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void resolvesThroughPointsEndpoint() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/points/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = path.startsWith("/points/41.")
+                    ? "{\"properties\":{\"gridId\":\"LOT\",\"gridX\":76,\"gridY\":73}}".getBytes(StandardCharsets.UTF_8)
+                    : "{\"title\":\"Data Unavailable For Requested Point\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(path.startsWith("/points/41.") ? 200 : 404, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            WeatherAPI.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+            WeatherAPI.setPointIndex(null);
+
+            assertEquals(new GridPoint("LOT", 76, 73), WeatherAPI.resolve(41.8781, -87.6298));
+            assertNull(WeatherAPI.resolve(51.5, -0.12));
+        } finally {
+            server.stop(0);
+            WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+            WeatherAPI.setPointIndex(null);
+        }
+    }
+}
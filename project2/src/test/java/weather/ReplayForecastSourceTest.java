@@ -0,0 +1,104 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReplayForecastSourceTest {
+    private Path dir;
+    private byte[] body;
+
+    @BeforeEach
+    void record() throws IOException {
+        dir = Files.createTempDirectory("replay");
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            body = in.readAllBytes();
+        }
+        Files.write(dir.resolve("gridpoints_forecast.json"), body);
+        WeatherAPI.getCache().clear();
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        WeatherAPI.getCache().clear();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(ReplayForecastSource.BASE_URL + path))
+                .timeout(Duration.ofMillis(100)).build();
+    }
+
+    @Test
+    void servesRecordingsThroughTheWholePipeline() throws IOException {
+        ReplayForecastSource replay = ReplayForecastSource.open(dir);
+        WeatherAPI.setForecastSource(replay);
+        long notModified = Metrics.count("fetch.notModified");
+
+        // any gridpoint falls back to the generic recording
+        Root first = WeatherAPI.refresh("LOT", 76, 73);
+        assertEquals(14, first.properties.periods.size());
+        assertEquals(14, WeatherAPI.getForecast("OKX", 33, 35).size());
+        // the ETag it handed out comes back as If-None-Match and gets a 304
+        assertSame(first, WeatherAPI.refresh("LOT", 76, 73));
+        assertEquals(notModified + 1, Metrics.count("fetch.notModified"));
+        assertEquals(3, replay.requestCount());
+    }
+
+    @Test
+    void injectsLatencyAndErrors() throws Exception {
+        ReplayForecastSource replay = ReplayForecastSource.open(dir);
+        // a missing recording is an error, never NWS's own 404 for an uncovered point
+        assertThrows(IOException.class, () -> replay.send(get("/points/41.8781,-87.6298")));
+
+        replay.setErrorRate(1);
+        assertEquals(503, replay.send(get("/gridpoints/LOT/76,73/forecast")).statusCode());
+        replay.setErrorRate(0);
+        replay.setDropRate(1);
+        assertThrows(IOException.class, () -> replay.send(get("/gridpoints/LOT/76,73/forecast")));
+        replay.setDropRate(0);
+
+        // slower than the 100ms request timeout
+        replay.setLatency(Duration.ofMillis(500), Duration.ZERO);
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class, () -> replay.send(get("/gridpoints/LOT/76,73/forecast")));
+        assertTrue(System.nanoTime() - start < 400_000_000L);
+        assertThrows(IllegalArgumentException.class, () -> replay.setErrorRate(1.5));
+    }
+
+    @Test
+    void recordsWhatItPassesThrough() throws Exception {
+        Path recorded = dir.resolve("recorded");
+        ForecastSource recorder = ReplayForecastSource.recording(ReplayForecastSource.open(dir), recorded);
+
+        HttpResponse<InputStream> response = recorder.send(get("/gridpoints/LOT/76,73/forecast"));
+        try (InputStream in = response.body()) {
+            assertArrayEquals(body, in.readAllBytes());
+        }
+        assertArrayEquals(body, Files.readAllBytes(recorded.resolve("gridpoints_LOT_76,73_forecast.json")));
+
+        ReplayForecastSource replay = ReplayForecastSource.open(recorded);
+        assertEquals(1, replay.size());
+        assertThrows(IOException.class, () -> replay.send(get("/gridpoints/LOT/1,1/forecast")));
+        try (InputStream in = replay.send(get("/gridpoints/LOT/76,73/forecast")).body()) {
+            assertArrayEquals(body, in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class ResilientFetchTest {
+    // scripted responses: an http status, or HANG to never answer; once empty every request gets a 200
+    private static final int HANG = 0;
+    // send the headers and half the body, then never the rest
+    private static final int STALL = 1;
+    // a 200 whose body is not a forecast
+    private static final int GARBAGE = 2;
+
+    private final ConcurrentLinkedDeque<Integer> script = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private HttpServer server;
+    private byte[] body;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/forecast.json")) {
+            body = in.readAllBytes();
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/gridpoints/", exchange -> {
+            requests.incrementAndGet();
+            Integer status = script.poll();
+            try {
+                if (status != null && status == HANG) {
+                    Thread.sleep(5_000);
+                    return;
+                }
+                if (status != null && status == GARBAGE) {
+                    exchange.sendResponseHeaders(200, 1);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write('{');
+                    }
+                    return;
+                }
+                if (status != null && status == STALL) {
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body, 0, body.length / 2);
+                    out.flush();
+                    Thread.sleep(5_000);
+                    return;
+                }
+                if (status != null) {
+                    exchange.getResponseHeaders().add("Retry-After", "0");
+                    exchange.sendResponseHeaders(status, -1);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/points/", exchange -> {
+            requests.incrementAndGet();
+            Integer status = script.poll();
+            byte[] point = "{\"properties\":{\"gridId\":\"LOT\",\"gridX\":76,\"gridY\":73}}".getBytes();
+            exchange.sendResponseHeaders(status == null ? 200 : status, status == null ? point.length : -1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (status == null) {
+                    out.write(point);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        WeatherAPI.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        WeatherAPI.setFetchPolicy(new FetchPolicy(Duration.ofSeconds(2), Duration.ofMillis(300), 3,
+                Duration.ofMillis(5), Duration.ofMillis(20), 3, Duration.ofMinutes(1)));
+        WeatherAPI.getCache().clear();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        executor.close();
+        WeatherAPI.setBaseUrl(WeatherAPI.DEFAULT_BASE_URL);
+        WeatherAPI.setFetchPolicy(FetchPolicy.DEFAULT);
+        WeatherAPI.getCache().clear();
+    }
+
+    @Test
+    void retriesServerErrorsThenSucceeds() {
+        script.add(503);
+        script.add(429);
+
+        List<Period> periods = WeatherAPI.getForecast("LOT", 1, 1);
+
+        assertNotNull(periods);
+        assertEquals(14, periods.size());
+        assertEquals(3, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, WeatherAPI.getCircuitBreaker().getState());
+    }
+
+    @Test
+    void hungRequestTimesOutAndIsRetried() {
+        script.add(HANG);
+
+        long start = System.nanoTime();
+        List<Period> periods = WeatherAPI.getForecast("LOT", 2, 2);
+
+        assertNotNull(periods);
+        assertEquals(2, requests.get());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(4).toNanos());
+    }
+
+    @Test
+    void bodyStalledAfterTheHeadersTimesOutAndIsRetried() {
+        script.add(STALL);
+
+        long start = System.nanoTime();
+        List<Period> periods = WeatherAPI.getForecast("LOT", 8, 8);
+
+        assertNotNull(periods);
+        assertEquals(14, periods.size());
+        assertEquals(2, requests.get());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(4).toNanos());
+    }
+
+    @Test
+    void unparseableBodyIsRetried() {
+        script.add(GARBAGE);
+
+        List<Period> periods = WeatherAPI.getForecast("LOT", 9, 9);
+
+        assertNotNull(periods);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        script.add(404);
+
+        ForecastResult r = WeatherAPI.getForecasts(List.of(new GridPoint("LOT", 3, 3))).get(new GridPoint("LOT", 3, 3));
+
+        assertFalse(r.isSuccess());
+        assertEquals(404, ((UpstreamException) r.error).status);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void servesStaleForecastWhenUpstreamFails() {
+        GridPoint gp = new GridPoint("LOT", 4, 4);
+        Root first = WeatherAPI.getCache().get(gp);
+        script.add(500);
+        script.add(500);
+        script.add(500);
+
+        assertSame(first, WeatherAPI.getCache().refresh(gp));
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void openCircuitStopsCallingUpstream() {
+        for (int i = 0; i < 3; i++) {
+            script.add(503);
+        }
+        assertNull(WeatherAPI.getForecast("LOT", 5, 5));
+        assertEquals(CircuitBreaker.State.OPEN, WeatherAPI.getCircuitBreaker().getState());
+
+        // upstream has recovered, but the circuit is still open so nothing is sent
+        assertNull(WeatherAPI.getForecast("LOT", 6, 6));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void halfOpenTrialWithoutAnOutcomeDoesNotWedgeTheCircuit() throws Exception {
+        WeatherAPI.setFetchPolicy(new FetchPolicy(Duration.ofSeconds(2), Duration.ofMillis(300), 1,
+                Duration.ofMillis(5), Duration.ofMillis(20), 1, Duration.ofMillis(50)));
+        GridPoint gp = new GridPoint("LOT", 7, 7);
+        script.add(503);
+        assertThrows(IOException.class, () -> WeatherAPI.fetchWithRetry(gp, null));
+        assertEquals(CircuitBreaker.State.OPEN, WeatherAPI.getCircuitBreaker().getState());
+
+        // the next two trials are interrupted and blow up before reaching upstream
+        ForecastSource http = WeatherAPI.getForecastSource();
+        AtomicInteger trials = new AtomicInteger();
+        WeatherAPI.setForecastSource(new ForecastSource() {
+            @Override
+            public String baseUrl() {
+                return http.baseUrl();
+            }
+
+            @Override
+            public HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+                switch (trials.incrementAndGet()) {
+                    case 1 -> throw new InterruptedException();
+                    case 2 -> throw new IllegalStateException("boom");
+                    default -> {
+                        return http.send(request);
+                    }
+                }
+            }
+        });
+        Thread.sleep(100);
+        assertThrows(InterruptedIOException.class, () -> WeatherAPI.fetchWithRetry(gp, null));
+        assertTrue(Thread.interrupted());
+        assertThrows(IllegalStateException.class, () -> WeatherAPI.fetchWithRetry(gp, null));
+
+        assertNotNull(WeatherAPI.fetchWithRetry(gp, null));
+        assertEquals(3, trials.get());
+        assertEquals(CircuitBreaker.State.CLOSED, WeatherAPI.getCircuitBreaker().getState());
+    }
+
+    @Test
+    void pointLookupsAreRetriedLikeForecasts() throws IOException {
+        script.add(503);
+        script.add(502);
+        assertEquals(new GridPoint("LOT", 76, 73), WeatherAPI.lookupPoint(41.8781, -87.6298));
+        assertEquals(3, requests.get());
+
+        // outside coverage is an answer, not a failure, and is not retried
+        script.add(404);
+        assertNull(WeatherAPI.lookupPoint(10, 10));
+        assertEquals(4, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, WeatherAPI.getCircuitBreaker().getState());
+    }
+}
@@ -0,0 +1,206 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SnapshotStoreTest {
+    private static final GridPoint LOT = new GridPoint("LOT", 76, 73);
+
+    private Path dir;
+
+    @BeforeEach
+    void createDir() throws IOException {
+        dir = Files.createTempDirectory("snapshots");
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static Root fixture(long generatedAt) throws IOException {
+        try (InputStream in = SnapshotStoreTest.class.getResourceAsStream("/forecast.json")) {
+            Root r = ForecastParser.parse(in);
+            r.properties.generatedAt = new Date(generatedAt);
+            return r;
+        }
+    }
+
+    @Test
+    void roundTripsAcrossReopen() throws IOException {
+        Root first = fixture(1_000);
+        Root second = fixture(2_000);
+        second.properties.periods.get(0).temperature = 99;
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.append(LOT, new ForecastCache.Entry(first, "\"v1\"", null)));
+            assertTrue(store.append(LOT, second));
+            assertFalse(store.append(LOT, second), "same generatedAt is stored once");
+        }
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertEquals(List.of(1_000L, 2_000L), store.versions(LOT));
+            Root latest = store.latest(LOT).root;
+            assertEquals(99, latest.properties.periods.get(0).temperature);
+            assertEquals(14, latest.properties.periods.size());
+
+            ForecastCache.Entry old = store.get(LOT, 1_000);
+            assertEquals("\"v1\"", old.etag);
+            Period expected = first.properties.periods.get(3);
+            Period actual = old.root.properties.periods.get(3);
+            assertEquals(expected.startTime, actual.startTime);
+            assertEquals(expected.shortForecast, actual.shortForecast);
+            assertEquals(expected.detailedForecast, actual.detailedForecast);
+            assertEquals(expected.probabilityOfPrecipitation.value, actual.probabilityOfPrecipitation.value);
+            assertEquals(first.properties.updateTime, old.root.properties.updateTime);
+        }
+    }
+
+    @Test
+    void rebuildsIndexAndDropsTornTail() throws IOException {
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            store.append(LOT, fixture(1_000));
+            store.append(new GridPoint("LOT", 1, 2), fixture(1_000));
+        }
+        Files.delete(dir.resolve(SnapshotStore.INDEX_FILE));
+        try (FileChannel log = FileChannel.open(dir.resolve(SnapshotStore.LOG_FILE), StandardOpenOption.APPEND)) {
+            log.write(ByteBuffer.wrap(new byte[] {0x4E, 0x57, 0x53}));
+        }
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertEquals(2, store.gridPoints().size());
+            assertNotNull(store.latest(new GridPoint("LOT", 1, 2)));
+            store.append(LOT, fixture(3_000));
+            assertEquals(3_000L, store.latest(LOT).root.properties.generatedAt.getTime());
+        }
+    }
+
+    @Test
+    void storesVersionsAsDeltasBetweenKeyframes() throws IOException {
+        int count = SnapshotStore.KEYFRAME_INTERVAL + 4;
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            for (int v = 0; v < count; v++) {
+                Root r = fixture(1_000 + v);
+                r.properties.periods.get(v % 14).temperature = 200 + v;
+                assertTrue(store.append(LOT, r));
+            }
+        }
+        long full = SnapshotStore.encode(LOT, new ForecastCache.Entry(fixture(1_000), null, null)).length;
+        // two keyframes and the rest deltas that change one temperature each
+        assertTrue(Files.size(dir.resolve(SnapshotStore.LOG_FILE)) < 2 * full, "all versions take less than two full records");
+
+        Files.delete(dir.resolve(SnapshotStore.INDEX_FILE));
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertEquals(count, store.versions(LOT).size());
+            for (int v = 0; v < count; v++) {
+                Root expected = fixture(1_000 + v);
+                expected.properties.periods.get(v % 14).temperature = 200 + v;
+                Root actual = store.get(LOT, 1_000 + v).root;
+                assertEquals(expected.properties.generatedAt, actual.properties.generatedAt);
+                for (int i = 0; i < 14; i++) {
+                    assertEquals(0, ForecastDelta.changedFields(expected.properties.periods.get(i),
+                            actual.properties.periods.get(i)), "version " + v + " period " + i);
+                }
+            }
+
+            List<ForecastDelta.Change> changes = store.changes(LOT);
+            // the newest version moved one period's temperature and put the one before back
+            assertEquals(2, changes.size());
+            assertEquals(ForecastDelta.TEMPERATURE, changes.get(0).fields());
+            assertEquals(ForecastDelta.TEMPERATURE, changes.get(1).fields());
+            assertEquals(200 + count - 1, changes.get(1).after().temperature);
+            assertTrue(store.changesSince(LOT, 1_000 + count - 1).isEmpty());
+        }
+    }
+
+    @Test
+    void skipsACorruptRecordWithoutDroppingLaterOnes() throws IOException {
+        GridPoint other = new GridPoint("LOT", 1, 2);
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            store.append(LOT, fixture(1_000));
+            store.append(other, fixture(1_000));
+            store.append(other, fixture(2_000));
+        }
+        // flip a byte inside the first record's payload
+        try (FileChannel log = FileChannel.open(dir.resolve(SnapshotStore.LOG_FILE), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.wrap(new byte[] {0x55}), 40);
+        }
+        Files.delete(dir.resolve(SnapshotStore.INDEX_FILE));
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.versions(LOT).isEmpty());
+            assertEquals(List.of(1_000L, 2_000L), store.versions(other));
+            assertEquals(2_000L, store.latest(other).root.properties.generatedAt.getTime());
+        }
+    }
+
+    @Test
+    void refusesASecondOpenOfTheSameDirectory() throws IOException {
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertThrows(IOException.class, () -> SnapshotStore.open(dir));
+            assertTrue(store.append(LOT, fixture(1_000)));
+        }
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertEquals(List.of(1_000L), store.versions(LOT));
+        }
+    }
+
+    @Test
+    void dropsDeltasWhoseKeyframeIsCorrupt() throws IOException {
+        GridPoint other = new GridPoint("LOT", 1, 2);
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            store.append(LOT, fixture(1_000));
+            store.append(other, fixture(1_000));
+            store.append(LOT, fixture(2_000));
+            store.append(LOT, fixture(3_000));
+        }
+        try (FileChannel log = FileChannel.open(dir.resolve(SnapshotStore.LOG_FILE), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.wrap(new byte[] {0x55}), 40);
+        }
+        Files.delete(dir.resolve(SnapshotStore.INDEX_FILE));
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertTrue(store.versions(LOT).isEmpty());
+            assertEquals(List.of(1_000L), store.versions(other));
+            // starts over with a keyframe
+            assertTrue(store.append(LOT, fixture(4_000)));
+            assertTrue(store.append(LOT, fixture(5_000)));
+            assertEquals(5_000L, store.latest(LOT).root.properties.generatedAt.getTime());
+            assertEquals(4_000L, store.get(LOT, 4_000).root.properties.generatedAt.getTime());
+        }
+    }
+
+    @Test
+    void warmingSkipsAnUnreadableSnapshot() throws IOException {
+        GridPoint other = new GridPoint("LOT", 1, 2);
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            store.append(LOT, fixture(1_000));
+            store.append(other, fixture(1_000));
+        }
+        // the index is intact, so the damage only shows when the record is read
+        try (FileChannel log = FileChannel.open(dir.resolve(SnapshotStore.LOG_FILE), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.wrap(new byte[] {0x55}), 40);
+        }
+        WeatherAPI.getCache().clear();
+        try (SnapshotStore store = SnapshotStore.open(dir)) {
+            assertThrows(IOException.class, () -> store.latest(LOT));
+            assertEquals(1, WeatherAPI.warmCache(store));
+            assertNotNull(WeatherAPI.getCache().getStale(other));
+            assertNull(WeatherAPI.getCache().getStale(LOT));
+        } finally {
+            WeatherAPI.getCache().clear();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package weather;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+// local stand-in for api.weather.gov that answers every gridpoint with the recorded forecast
+// (or the recorded hourly forecast for .../forecast/hourly)
+class StubUpstream implements AutoCloseable {
+    final AtomicInteger requests = new AtomicInteger();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final byte[] body;
+    private final byte[] hourlyBody;
+
+    StubUpstream(long latencyMillis) throws IOException {
+        try (InputStream in = StubUpstream.class.getResourceAsStream("/forecast.json")) {
+            body = in.readAllBytes();
+        }
+        try (InputStream in = StubUpstream.class.getResourceAsStream("/forecast-hourly.json")) {
+            hourlyBody = in.readAllBytes();
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/gridpoints/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                byte[] out = exchange.getRequestURI().getPath().endsWith("/hourly") ? hourlyBody : body;
+                exchange.getResponseHeaders().add("Content-Type", "application/geo+json");
+                exchange.sendResponseHeaders(200, out.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(out);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+}
@@ -0,0 +1,52 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TileStateTest {
+    private static final ZoneId CHICAGO = ZoneId.of("America/Chicago");
+
+    private static List<Period> periods() throws IOException {
+        try (InputStream in = TileStateTest.class.getResourceAsStream("/forecast.json")) {
+            return ForecastParser.parse(in).properties.periods;
+        }
+    }
+
+    @Test
+    void sameForecastGivesEqualState() throws IOException {
+        TileState a = TileState.of("Chicago, IL", periods(), CHICAGO);
+        TileState b = TileState.of("Chicago, IL", periods(), CHICAGO);
+
+        assertEquals(a, b);
+        assertEquals("40°F", a.temperature());
+    }
+
+    @Test
+    void changedPeriodChangesState() throws IOException {
+        List<Period> changed = periods();
+        changed.get(0).temperature = 12;
+
+        TileState before = TileState.of("Chicago, IL", periods(), CHICAGO);
+        TileState after = TileState.of("Chicago, IL", changed, CHICAGO);
+
+        assertNotEquals(before, after);
+        assertEquals("12°F", after.temperature());
+        assertEquals(before.condition(), after.condition());
+    }
+
+    @Test
+    void savedLocationsParseBothForms() {
+        SavedLocation grid = SavedLocation.parse("Chicago, IL;LOT;76;73");
+        SavedLocation coordinate = SavedLocation.parse("New York, NY;40.7128;-74.0060");
+
+        assertEquals("Chicago, IL", grid.name);
+        assertEquals(40.7128, coordinate.lat);
+        assertThrows(IllegalArgumentException.class, () -> SavedLocation.parse("Nowhere"));
+    }
+}
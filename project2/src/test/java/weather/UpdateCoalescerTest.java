@@ -0,0 +1,45 @@
+package weather;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class UpdateCoalescerTest {
+    private final ArrayDeque<Runnable> uiQueue = new ArrayDeque<>();
+    private final UpdateCoalescer coalescer = new UpdateCoalescer(uiQueue::add);
+
+    @Test
+    void burstOfUpdatesIsOneUiTask() {
+        List<String> applied = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            coalescer.submit("tile" + (i % 10), () -> applied.add("tile" + (n % 10) + "=" + n));
+        }
+
+        assertEquals(1, uiQueue.size());
+        assertEquals(10, coalescer.pendingCount());
+        uiQueue.poll().run();
+
+        // only the latest update for each tile runs
+        assertEquals(10, applied.size());
+        assertTrue(applied.contains("tile3=93"));
+        assertFalse(applied.contains("tile3=3"));
+        assertEquals(0, coalescer.pendingCount());
+    }
+
+    @Test
+    void updatesAfterADrainScheduleTheNextBatch() {
+        List<Integer> applied = new ArrayList<>();
+        coalescer.submit("a", () -> applied.add(1));
+        uiQueue.poll().run();
+        coalescer.submit("a", () -> applied.add(2));
+
+        assertEquals(1, uiQueue.size());
+        uiQueue.poll().run();
+        assertEquals(List.of(1, 2), applied);
+    }
+}